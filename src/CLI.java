@@ -68,10 +68,30 @@ public class CLI {
         return args.toArray(new String[0]);
     }
 
+    /**
+     * Splits a command line into the command and its arguments. Commands that take the rest of
+     * the line as typed, such as {@code query}, get it as a single argument, so that quotes in it
+     * are kept.
+     *
+     * @param input raw user input
+     * @return array where element&nbsp;0 is the command and the rest are its arguments
+     * @throws IllegalArgumentException if a quoted string is not properly closed
+     */
+    private String[] parseLine(String input) throws IllegalArgumentException {
+        int end = 0;
+        while (end < input.length() && !Character.isWhitespace(input.charAt(end))) end++;
+        String command = input.substring(0, end);
+        if (!commandHandler.takesRawArguments(command))
+            return parseCommand(input);
+
+        String rest = input.substring(end).strip();
+        return rest.isEmpty() ? new String[] {command} : new String[] {command, rest};
+    }
+
     /**
      * Launches the read–eval–print loop.
      * Prompts the user with {@code "> "}, parses each line, and invokes
-     * {@link CommandHandler#handleCommand(String, String[])} with the extracted
+     * {@link CommandHandler#handleCommand(String, String[], java.io.PrintStream)} with the extracted
      * command and arguments. The loop exits when the user types {@code exit}.
      */
     public void run()
@@ -91,7 +111,7 @@ public class CLI {
             try {
 
 
-                items = parseCommand(line);
+                items = parseLine(line);
             }catch (IllegalArgumentException ex)
             {
                 System.out.println(ex.getMessage());
@@ -104,9 +124,7 @@ public class CLI {
 
             String[] arguments = Arrays.copyOfRange(items,1,items.length);
 
-            String result = commandHandler.handleCommand(command,arguments);
-
-            System.out.println(result);
+            commandHandler.handleCommand(command,arguments,System.out);
 
         }
     }
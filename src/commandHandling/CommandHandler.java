@@ -4,6 +4,7 @@ import src.json.FileHandler;
 import src.json.commands.*;
 import src.json.JsonFileHandler;
 
+import java.io.PrintStream;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -35,7 +36,7 @@ public class CommandHandler {
 
         commandHandling.put(CommandIdentifier.OPEN, new Open(fileHandler));
         commandHandling.put(CommandIdentifier.VALIDATE, new Validate(fileHandler,jsonFileHandler));
-        commandHandling.put(CommandIdentifier.PRINT, new Print(jsonFileHandler));
+        commandHandling.put(CommandIdentifier.PRINT, new Print(fileHandler,jsonFileHandler));
         commandHandling.put(CommandIdentifier.SET, new Set(jsonFileHandler));
         commandHandling.put(CommandIdentifier.SEARCH, new Search(jsonFileHandler));
         commandHandling.put(CommandIdentifier.HELP, new Help());
@@ -45,10 +46,32 @@ public class CommandHandler {
         commandHandling.put(CommandIdentifier.MOVE, new Move(jsonFileHandler));
         commandHandling.put(CommandIdentifier.CREATE, new Create(jsonFileHandler));
         commandHandling.put(CommandIdentifier.CLOSE, new Close(fileHandler,jsonFileHandler));
+        commandHandling.put(CommandIdentifier.STATS, new Stats(jsonFileHandler));
+        commandHandling.put(CommandIdentifier.UNDO, new Undo(jsonFileHandler));
+        commandHandling.put(CommandIdentifier.REDO, new Redo(jsonFileHandler));
+        commandHandling.put(CommandIdentifier.HISTORY, new History(jsonFileHandler));
+        commandHandling.put(CommandIdentifier.QUERY, new Query(jsonFileHandler));
+        commandHandling.put(CommandIdentifier.INDEX, new Index(fileHandler));
 
 
     }
 
+    /**
+     * @param command raw command as typed by the user
+     * @return {@code true} if the command wants the rest of the line unsplit, see
+     *         {@link Command#takesRawArguments()}
+     */
+    public boolean takesRawArguments(String command)
+    {
+        try {
+            Command executableCommand = commandHandling.get(CommandIdentifier.fromString(command));
+            return executableCommand != null && executableCommand.takesRawArguments();
+        }catch (IllegalArgumentException ex)
+        {
+            return false;
+        }
+    }
+
     /**
      * Executes a command given its textual name and argument list.
      *
@@ -78,6 +101,32 @@ public class CommandHandler {
         return commandResult;
     }
 
+    /**
+     * Executes a command and prints its result to {@code out}, letting the command print long
+     * output while it is produced.
+     *
+     * @param command command name
+     * @param args    arguments passed from the CLI
+     * @param out     console the result is printed to
+     */
+    public void handleCommand(String command, String[] args, PrintStream out)
+    {
+        CommandIdentifier identifier;
+        try {
+            identifier = CommandIdentifier.fromString(command);
+        }catch (IllegalArgumentException ex)
+        {
+            out.println(ex.getMessage());
+            return;
+        }
+
+        Command executableCommand = commandHandling.get(identifier);
+        if(executableCommand != null)
+            executableCommand.execute(args, out);
+        else
+            out.println("No such command!");
+    }
+
 
 
 }
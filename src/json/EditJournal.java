@@ -0,0 +1,248 @@
+package src.json;
+
+import src.json.types.JsonElement;
+import src.json.types.JsonFormat;
+import src.json.types.JsonPath;
+import src.json.types.JsonWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Bounded history of the edits made to a document, read by {@code undo} and {@code redo}.
+ * <p>
+ * The journal keeps no snapshots. An entry holds the paths an edit changed and references to the
+ * values found there before and after it, so recording or reverting an edit costs about as much
+ * as the edit itself. Values that an edit took out of the document stay reachable only through
+ * the journal, which is why it keeps at most {@link #getMaxEntries()} entries and, if a byte limit
+ * is set, drops its oldest entries once the values they hold are estimated to exceed it.
+ */
+public class EditJournal {
+
+    /** Number of edits that can be undone unless configured otherwise. */
+    public static final int DEFAULT_MAX_ENTRIES = 100;
+
+    /** Estimated cost of an entry apart from its values. */
+    private static final long ENTRY_OVERHEAD = 64;
+
+    /**
+     * One change made by an edit: the value at {@code path} went from {@code before} to
+     * {@code after}. A {@code null} value means the member or element did not exist.
+     */
+    static final class Change {
+        final JsonPath path;
+        final JsonElement before;
+        final JsonElement after;
+        /** Position of an added or removed object member, or -1. */
+        final int position;
+
+        Change(JsonPath path, JsonElement before, JsonElement after, int position) {
+            this.path = path;
+            this.before = before;
+            this.after = after;
+            this.position = position;
+        }
+    }
+
+    /**
+     * One reversible edit, made of the changes it applied in order.
+     */
+    static final class Entry {
+        /** The command that made the edit, e.g. {@code set a.b 1}. */
+        final String description;
+        final Change[] changes;
+        /** Estimated size, or -1 until a byte limit asks for it. */
+        long bytes = -1;
+
+        Entry(String description, Change... changes) {
+            this.description = description;
+            this.changes = changes;
+        }
+    }
+
+    private final Deque<Entry> undoable = new ArrayDeque<>();
+    private final Deque<Entry> redoable = new ArrayDeque<>();
+
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+    /** Byte limit, or 0 for none. */
+    private long maxBytes;
+    private long bytes;
+
+    /**
+     * Records a new edit. Edits that were undone can no longer be redone afterwards.
+     *
+     * @param entry the edit
+     */
+    void record(Entry entry) {
+        for (Entry dropped : redoable) {
+            release(dropped);
+        }
+        redoable.clear();
+
+        undoable.push(entry);
+        account(entry);
+        trim();
+    }
+
+    /**
+     * @return the edit {@code undo} would revert, or {@code null}
+     */
+    Entry peekUndo() {
+        return undoable.peek();
+    }
+
+    /**
+     * @return the edit {@code redo} would apply again, or {@code null}
+     */
+    Entry peekRedo() {
+        return redoable.peek();
+    }
+
+    /**
+     * Moves the most recent edit to the redo side once it has been reverted.
+     */
+    void undone() {
+        redoable.push(undoable.pop());
+    }
+
+    /**
+     * Moves the most recently undone edit back to the undo side once it has been applied again.
+     */
+    void redone() {
+        undoable.push(redoable.pop());
+    }
+
+    /**
+     * Forgets every edit, e.g. when another document is loaded.
+     */
+    void clear() {
+        undoable.clear();
+        redoable.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Changes the limits and drops the oldest edits that no longer fit.
+     *
+     * @param maxEntries maximum number of edits that can be undone, at least 0
+     * @param maxBytes   maximum estimated size of the recorded values, or 0 for no limit
+     */
+    public void setLimits(int maxEntries, long maxBytes) {
+        if (maxEntries < 0 || maxBytes < 0)
+            throw new IllegalArgumentException("History limits must not be negative");
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        for (Deque<Entry> side : List.of(undoable, redoable)) {
+            for (Entry entry : side) {
+                if (maxBytes > 0)
+                    account(entry);
+                else
+                    entry.bytes = -1;
+            }
+        }
+        if (maxBytes == 0)
+            bytes = 0;
+        trim();
+    }
+
+    /**
+     * @return maximum number of edits that can be undone
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * @return byte limit, or 0 if there is none
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return number of edits that can be undone
+     */
+    public int undoSize() {
+        return undoable.size();
+    }
+
+    /**
+     * @return number of edits that can be redone
+     */
+    public int redoSize() {
+        return redoable.size();
+    }
+
+    /**
+     * @return estimated size of the recorded values, or 0 if no byte limit is set
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    private void trim() {
+        while (undoable.size() > maxEntries || (maxBytes > 0 && bytes > maxBytes && !undoable.isEmpty())) {
+            release(undoable.removeLast());
+        }
+    }
+
+    /**
+     * Sizes an entry that has not been sized yet, which is only done while a byte limit is set
+     * since it walks the recorded values.
+     */
+    private void account(Entry entry) {
+        if (maxBytes == 0 || entry.bytes >= 0)
+            return;
+        long size = ENTRY_OVERHEAD;
+        for (Change change : entry.changes) {
+            size += 2L * change.path.toString().length() + estimate(change.before) + estimate(change.after);
+        }
+        entry.bytes = size;
+        bytes += size;
+    }
+
+    private void release(Entry entry) {
+        if (entry.bytes > 0)
+            bytes -= entry.bytes;
+    }
+
+    /**
+     * Estimates the memory held by a value from the length of its compact JSON text.
+     */
+    private static long estimate(JsonElement value) {
+        if (value == null)
+            return 0;
+        CharCounter counter = new CharCounter();
+        try {
+            value.write(new JsonWriter(counter, JsonFormat.COMPACT), 0);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return 2 * counter.count;
+    }
+
+    private static final class CharCounter implements Appendable {
+        long count;
+
+        @Override
+        public Appendable append(CharSequence csq) {
+            count += csq == null ? 4 : csq.length();
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            count += end - start;
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) {
+            count++;
+            return this;
+        }
+    }
+}
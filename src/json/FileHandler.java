@@ -1,45 +1,88 @@
 package src.json;
 
+import src.exception.JsonParseException;
+import src.exception.NotFoundException;
+import src.json.Parsing.OffsetIndex;
 import src.json.commands.SaveAs;
 import src.json.types.JsonElement;
+import src.json.types.JsonFormat;
 import src.json.types.JsonObject;
+import src.json.types.JsonPath;
+import src.json.types.JsonWriter;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
 public class FileHandler {
 
+    /** Files at least this many bytes are memory-mapped unless {@code json.mmap.threshold} says otherwise. */
+    public static final long DEFAULT_MAPPING_THRESHOLD = 64L * 1024 * 1024;
+
     private Path filePath;
     private JsonElement jsonObject;
     private String rawText;
 
+    /** Mapping of the open file when it was opened in mapped mode, otherwise {@code null}. */
+    private MappedFileInputStream mappedFile;
+
+    /** {@code true} if the open file holds one JSON value per line. */
+    private boolean jsonLines;
+
+    /** Size in bytes from which files are mapped instead of read into {@code rawText}. */
+    private long mappingThreshold = Long.getLong("json.mmap.threshold", DEFAULT_MAPPING_THRESHOLD);
+
     /**
      * Opens a JSON file, parses it and stores the result in memory.
+     * <p>
+     * Files of at least {@link #getMappingThreshold()} bytes are memory-mapped instead of being
+     * decoded into a {@code String}; their contents are then read straight from the mapping.
      *
      * @param fileName path to the file on disk
      * @return empty string on success, otherwise an explanatory message
      */
     public String openFile(String fileName) {
+        return openFile(fileName, false);
+    }
 
-
-
+    /**
+     * Opens a JSON file, optionally as JSON Lines.
+     * Files ending in {@code .jsonl} or {@code .ndjson} are always opened as JSON Lines.
+     *
+     * @param fileName  path to the file on disk
+     * @param jsonLines {@code true} to treat every line as a separate JSON value
+     * @return empty string on success, otherwise an explanatory message
+     */
+    public String openFile(String fileName, boolean jsonLines) {
         Path path = Path.of(fileName);
+        String lowerName = fileName.toLowerCase();
+        this.jsonLines = jsonLines || lowerName.endsWith(".jsonl") || lowerName.endsWith(".ndjson");
 
         if (!Files.exists(path)) {
-            saveAs(fileName,new JsonObject().toJson(0));
+            saveAs(fileName,new JsonObject());
         }
 
         try {
-            rawText = Files.readString(path);
+            if (Files.size(path) >= mappingThreshold) {
+                mappedFile = new MappedFileInputStream(path);
+                rawText = null;
+            } else {
+                rawText = Files.readString(path);
+                mappedFile = null;
+            }
             filePath = path;
 
         } catch (IOException e) {
             return "Error reading file: " + e.getMessage();
         }
 
-        return "File opened";
+        String mode = this.jsonLines ? " as JSON Lines" : "";
+        return mappedFile != null ? "File opened" + mode + " (memory-mapped)" : "File opened" + mode;
     }
 
     /**
@@ -57,6 +100,7 @@ public class FileHandler {
             } catch (FileAlreadyExistsException ignored) {
             }
             Files.writeString(path,jsonString);
+            remapIfOpen(path);
         } catch (IOException e) {
             return "Error reading file: " + e.getMessage();
         }
@@ -65,6 +109,40 @@ public class FileHandler {
     }
 
 
+    /**
+     * Streams {@code element} to {@code fileName}. The text is encoded and written as the tree
+     * is traversed, so the document is never held in memory as a single string.
+     *
+     * @param fileName destination path
+     * @param element  subtree to write
+     * @return "File saved" on success or an error message
+     */
+    public String saveAs(String fileName, JsonElement element) {
+        return saveAs(fileName, element, JsonFormat.PRETTY);
+    }
+
+    /**
+     * Streams {@code element} to {@code fileName} in the given layout.
+     *
+     * @param fileName destination path
+     * @param element  subtree to write
+     * @param format   layout of the output
+     * @return "File saved" on success or an error message
+     */
+    public String saveAs(String fileName, JsonElement element, JsonFormat format) {
+        Path path = Path.of(fileName);
+        try {
+            try (JsonWriter writer = new JsonWriter(Files.newOutputStream(path), format)) {
+                writer.writeFile(element);
+            }
+            remapIfOpen(path);
+        } catch (IOException e) {
+            return "Error writing file: " + e.getMessage();
+        }
+
+        return "File saved";
+    }
+
     public String saveAs(String jsonString) {
 
         try {
@@ -73,6 +151,7 @@ public class FileHandler {
             } catch (FileAlreadyExistsException ignored) {
             }
             Files.writeString(filePath,jsonString);
+            remapIfOpen(filePath);
         } catch (IOException e) {
             return "Error reading file: " + e.getMessage();
         }
@@ -94,14 +173,117 @@ public class FileHandler {
         return filePath != null ? saveAs(filePath.toString(),rawText) : "No file open";
     }
 
+    /**
+     * Streams {@code element} to the originally opened file.
+     *
+     * @param element document to write
+     * @return "File saved" on success or an error message
+     */
+    public String save(JsonElement element) {
+        return save(element, JsonFormat.PRETTY);
+    }
+
+    /**
+     * Streams {@code element} to the originally opened file in the given layout.
+     *
+     * @param element document to write
+     * @param format  layout of the output
+     * @return "File saved" on success or an error message
+     */
+    public String save(JsonElement element, JsonFormat format) {
+        return filePath != null ? saveAs(filePath.toString(), element, format) : "No file open";
+    }
+
+    /**
+     * Overwriting a mapped file truncates it underneath the mapping, so the open file
+     * is mapped again once it has been rewritten.
+     *
+     * @param path file that was just written
+     * @throws IOException if the new contents cannot be mapped
+     */
+    private void remapIfOpen(Path path) throws IOException {
+        if (mappedFile != null && path.equals(filePath))
+            mappedFile = new MappedFileInputStream(path);
+    }
+
+    /**
+     * Builds the {@link OffsetIndex} of the open file and saves it next to the file.
+     *
+     * @return a confirmation with the number of values indexed, or an error message
+     */
+    public String buildOffsetIndex() {
+        if (filePath == null)
+            return "No file opened";
+        try {
+            long values = OffsetIndex.build(filePath, jsonLines);
+            return "Offset index saved to " + OffsetIndex.sidecarOf(filePath) + " (" + values + " values)";
+        } catch (JsonParseException e) {
+            return "Cannot index file: " + e.getMessage();
+        } catch (IOException e) {
+            return "Error reading file: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Reads one value of the open file through its offset index, without parsing the rest of it.
+     *
+     * @param jsonPath dot / bracket path, e.g. {@code [5000000].user}
+     * @return the value
+     * @throws NotFoundException if no file is open, it has no up-to-date index or the path does
+     *                           not exist
+     */
+    public JsonElement readIndexed(String jsonPath) throws NotFoundException {
+        if (filePath == null)
+            throw new NotFoundException("No file opened");
+        try {
+            return OffsetIndex.getValueAt(filePath, JsonPath.compile(jsonPath));
+        } catch (IOException e) {
+            throw new NotFoundException("Error reading file: " + e.getMessage());
+        }
+    }
+
     public String getRawText() { return rawText; }
 
+    /**
+     * @return {@code true} if the open file is memory-mapped rather than held in {@link #getRawText()}
+     */
+    public boolean isMapped() { return mappedFile != null; }
+
+    /**
+     * @return {@code true} if the open file is a JSON Lines document
+     */
+    public boolean isJsonLines() { return jsonLines; }
+
+    /**
+     * Returns a reader over the contents of the open file, starting at the beginning.
+     * Mapped files are decoded from UTF-8 as they are read.
+     *
+     * @return reader over the file contents, or {@code null} if no file is open
+     */
+    public Reader openReader() {
+        if (mappedFile != null)
+            return new InputStreamReader(mappedFile.rewind(), StandardCharsets.UTF_8);
+        return rawText != null ? new StringReader(rawText) : null;
+    }
+
+    /**
+     * @return size in bytes from which files are opened in mapped mode
+     */
+    public long getMappingThreshold() { return mappingThreshold; }
+
+    /**
+     * @param mappingThreshold size in bytes from which files are opened in mapped mode
+     */
+    public void setMappingThreshold(long mappingThreshold) { this.mappingThreshold = mappingThreshold; }
+
     public String close()
     {
-        if(filePath != null)
+        if(filePath == null)
             return "File already closed";
         filePath = null;
         rawText = null;
+        mappedFile = null;
+        jsonLines = false;
 
         return "File closed";
     }
@@ -2,30 +2,58 @@ package src.json;
 
 import src.exception.InvalidJsonPathException;
 import src.exception.NotFoundException;
+import src.json.Parsing.JsonLinesParseResult;
+import src.json.Parsing.JsonLinesParser;
 import src.json.Parsing.JsonParseResult;
 import src.json.Parsing.JsonParser;
+import src.json.Parsing.JsonTape;
+import src.json.Parsing.KeyTable;
 import src.json.Parsing.ValueParseResult;
 import src.json.Parsing.ValueParser;
-import src.json.types.JsonArray;
+import src.json.query.JsonQuery;
+import src.json.types.JsonArrayWriter;
 import src.json.types.JsonElement;
+import src.json.types.JsonFormat;
 import src.json.types.JsonObject;
+import src.json.types.JsonPath;
+import src.json.types.JsonSink;
+import src.json.types.JsonWriter;
+import src.json.types.KeyFilter;
+import src.json.types.LazyJsonComposite;
 import src.json.types.Nothing;
+import src.json.types.ParallelSearch;
 import src.validators.JsonPathIntersectionValidator;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Manages a single JSON document in memory and provides file I/O plus path-based editing utilities.
  */
 public class JsonFileHandler {
 
+    /** Maximum number of invalid lines listed by {@link #validateLines(Reader)}. */
+    private static final int MAX_REPORTED_LINES = 20;
+
 
     private JsonElement jsonObject;
 
+    /** Member names interned while the document was parsed, or {@code null}. */
+    private KeyTable keyTable;
+
+    /** Edits that {@link #undo()} and {@link #redo()} can revert and apply again. */
+    private final EditJournal journal = new EditJournal();
+
+    /** Index of member names kept up to date by every edit, or {@code null} if none was built. */
+    private KeyIndex keyIndex;
+
 
 
     /** Creates an empty handler with no file loaded. */
@@ -43,9 +71,19 @@ public class JsonFileHandler {
         if(jsonObject == null)
             return "No file opened";
 
-        Queue<String> pathQueue = parseJsonPath(jsonPath);
+        materialize();
+        JsonPath path = JsonPath.compile(jsonPath);
         try {
-            return assign(pathQueue, jsonObject, "Main object", Nothing.INSTANCE);
+            JsonElement previous = valueAt(jsonObject, path);
+            int position = positionOf(path);
+            int[] located = locate(path);
+            String result = assign(path, jsonObject, "Main object", Nothing.INSTANCE);
+            if (isApplied(result) && previous != null) {
+                reindex(path, located, previous, null);
+                journal.record(new EditJournal.Entry("remove " + jsonPath,
+                        new EditJournal.Change(path, previous, null, position)));
+            }
+            return result;
         } catch (NotFoundException ex) {
             return ex.getMessage();
         }
@@ -54,26 +92,30 @@ public class JsonFileHandler {
     /**
      * Core recursive routine that traverses the structure and either sets or removes a value.
      *
-     * @param jsonPath    queue of path tokens (mutated during traversal)
+     * @param jsonPath    compiled path
      * @param currentData element currently inspected
      * @param previousKey last object key or array index (for error context)
      * @param valueToAdd  value to insert; {@link Nothing#INSTANCE} signals removal
      * @return message indicating the performed action
      * @throws NotFoundException if the path cannot be resolved
      */
-    private String assign(Queue<String> jsonPath,
+    private String assign(JsonPath jsonPath,
                           JsonElement currentData,
                           String previousKey,
                           JsonElement valueToAdd) throws NotFoundException {
         if(currentData == null)
             return "No file opened";
 
-        return currentData.assign(jsonPath, previousKey, valueToAdd);
+        return currentData.assign(jsonPath, 0, previousKey, valueToAdd);
 
     }
 
     /**
      * Moves data from {@code from} to {@code to} after validating that the paths do not overlap.
+     * <p>
+     * The value is removed from {@code from} first, so {@code to} is resolved in the document
+     * without it. Both steps are applied to a version of the document in which only the containers
+     * along the two paths are copied, and that version replaces the document only if both succeed.
      *
      * @param from source path
      * @param to   destination path
@@ -87,17 +129,33 @@ public class JsonFileHandler {
             return validationResult.getReasonForFailure();
         }
 
-        Queue<String> fromQueue = parseJsonPath(from);
+        materialize();
+        JsonPath fromPath = JsonPath.compile(from);
+        JsonPath toPath = JsonPath.compile(to);
+        int fromPosition = positionOf(fromPath);
+        int[] fromLocated = locate(fromPath);
         JsonElement value;
-        var copiedObj = jsonObject.deepCopy();
+        var copiedObj = jsonObject.copyPath(fromPath, 0);
         try {
 
-            value = copiedObj.getValueAt(fromQueue, "Main object");
-            assign(fromQueue, copiedObj, "Main object", Nothing.INSTANCE);
+            value = copiedObj.getValueAt(fromPath, 0, "Main object");
+            String result = assign(fromPath, copiedObj, "Main object", Nothing.INSTANCE);
+            if (!isApplied(result))
+                return result;
 
-            String result = assign(parseJsonPath(to), copiedObj, "Main object", value);
+            // Indices along the destination may have shifted, so it is copied only now.
+            copiedObj = copiedObj.copyPath(toPath, 0);
+            JsonElement previous = valueAt(copiedObj, toPath);
+            result = assign(toPath, copiedObj, "Main object", value);
+            if (!isApplied(result))
+                return result;
 
             jsonObject = copiedObj;
+            reindex(fromPath, fromLocated, value, null);
+            reindex(toPath, null, previous, value);
+            journal.record(new EditJournal.Entry("move " + from + " " + to,
+                    new EditJournal.Change(fromPath, value, null, fromPosition),
+                    new EditJournal.Change(toPath, previous, value, -1)));
             return result;
         } catch (NotFoundException ex) {
 
@@ -105,39 +163,6 @@ public class JsonFileHandler {
         }
     }
 
-    /**
-     * Splits a dotted/bracket JSON path into individual tokens.
-     *
-     * @param path raw path expression
-     * @return queue of tokens ready for traversal
-     */
-    private Queue<String> parseJsonPath(String path) {
-        Queue<String> pathQueue = new ArrayDeque<>();
-        for (String segment : path.split("\\.")) {
-            int bracketIndex;
-            String substr = segment;
-            boolean wasSplit = false;
-            while (true) {
-                bracketIndex = substr.indexOf('[');
-                if (bracketIndex != -1) {
-                    if (bracketIndex != 0) {
-                        pathQueue.add(substr.substring(0, bracketIndex));
-                    }
-                    int closingIndex = substr.indexOf(']');
-                    pathQueue.add(substr.substring(bracketIndex, closingIndex + 1));
-                    substr = substr.substring(closingIndex + 1);
-                    wasSplit = true;
-                } else {
-                    break;
-                }
-            }
-            if (!wasSplit) {
-                pathQueue.add(segment);
-            }
-        }
-        return pathQueue;
-    }
-
     /**
      * Inserts or replaces a value at the given path.
      *
@@ -150,6 +175,7 @@ public class JsonFileHandler {
         if(jsonObject == null)
             return "No file opened";
 
+        materialize();
         ValueParseResult valueParseResult = ValueParser.parseValue(jsonValue);
         JsonParseResult parseResult = JsonParser.parseJson(jsonValue);
         JsonElement toAssign;
@@ -165,29 +191,63 @@ public class JsonFileHandler {
             toAssign = parseResult.parsedData;;
         }
 
+        JsonPath path = JsonPath.compile(jsonPath);
         try {
-            return assign(parseJsonPath(jsonPath), jsonObject, "Main object", toAssign);
+            JsonElement previous = valueAt(jsonObject, path);
+            String result = assign(path, jsonObject, "Main object", toAssign);
+            if (isApplied(result) && previous != null) {
+                reindex(path, null, previous, toAssign);
+                journal.record(new EditJournal.Entry("set " + jsonPath + " " + jsonValue,
+                        new EditJournal.Change(path, previous, toAssign, -1)));
+            }
+            return result;
         } catch (NotFoundException ex) {
             return ex.getMessage();
         }
     }
 
+    /**
+     * Converts a lazily parsed document into a regular tree before its first edit.
+     */
+    private void materialize() {
+        if (jsonObject instanceof LazyJsonComposite)
+            jsonObject = jsonObject.deepCopy();
+    }
+
     /**
      * Validates the last parsed document.
      *
      * @return "Json is valid" if no parse errors were found or the stored error message otherwise
      */
     public String validate(String rawText) {
+        return validate(rawText, false);
+    }
 
-
-        JsonParseResult jsonParseResult = JsonParser.parseJson(rawText);
+    /**
+     * Validates the last parsed document.
+     * <p>
+     * In lazy mode only a {@link JsonTape} of token offsets is built; nodes are created when
+     * {@code print} or {@code search} reach them, and the whole document is turned into a regular
+     * tree the first time it is edited.
+     *
+     * @param rawText document text
+     * @param lazy    {@code true} to keep the document as a lazy view over the text
+     * @return "Json is valid" if no parse errors were found or the stored error message otherwise
+     */
+    public String validate(String rawText, boolean lazy) {
 
         if (rawText == null) {
             return "You must first open a file before validating";
         }
+
+        JsonParseResult jsonParseResult = lazy ? JsonTape.parse(rawText) : JsonParser.parseJson(rawText);
         if(jsonParseResult.isSuccess())
         {
             jsonObject = jsonParseResult.parsedData;
+            keyTable = jsonParseResult.keyTable;
+            keyIndex = null;
+            KeyFilter.resetStatistics();
+            journal.clear();
             return "Json is valid";
         }
         else
@@ -197,6 +257,89 @@ public class JsonFileHandler {
 
     }
 
+    /**
+     * Validates a document that is read from a stream instead of an in-memory string,
+     * e.g. a memory-mapped file. The stream is read twice, so that errors are reported exactly
+     * as {@link #validate(String)} reports them.
+     *
+     * @param source opens a reader at the start of the document text, or returns {@code null} if
+     *               no file is open
+     * @return "Json is valid" if no parse errors were found or the error message otherwise
+     */
+    public String validate(Supplier<Reader> source) {
+        if (source.get() == null) {
+            return "You must first open a file before validating";
+        }
+
+        JsonParseResult jsonParseResult = JsonParser.parseJson(source);
+        if (jsonParseResult.isSuccess()) {
+            jsonObject = jsonParseResult.parsedData;
+            keyTable = jsonParseResult.keyTable;
+            keyIndex = null;
+            KeyFilter.resetStatistics();
+            journal.clear();
+            return "Json is valid";
+        }
+        return jsonParseResult.errorMessage;
+    }
+
+    /**
+     * Validates a JSON Lines document, parsing its lines in parallel.
+     * <p>
+     * Invalid lines do not stop validation: every line is checked, the valid records are loaded
+     * and the invalid ones are listed by line number and loaded as their raw text so that record
+     * indices stay aligned with the file.
+     *
+     * @param reader source of the document text
+     * @return "Json is valid" with the record count, or a summary of the invalid lines
+     */
+    public String validateLines(Reader reader) {
+        if (reader == null) {
+            return "You must first open a file before validating";
+        }
+
+        JsonLinesParseResult result = JsonLinesParser.parse(reader);
+        if (result.readError != null) {
+            return result.readError;
+        }
+
+        jsonObject = result.parsedData;
+        keyTable = result.keyTable;
+        keyIndex = null;
+        KeyFilter.resetStatistics();
+        journal.clear();
+        int records = result.parsedData.size();
+        if (result.isSuccess()) {
+            return "Json is valid (" + records + " records)";
+        }
+
+        StringBuilder message = new StringBuilder();
+        message.append(result.errorMessages.size()).append(" of ").append(records).append(" records are invalid:");
+        for (int i = 0; i < Math.min(MAX_REPORTED_LINES, result.errorMessages.size()); i++) {
+            message.append("\n").append(result.errorMessages.get(i));
+        }
+        if (result.errorMessages.size() > MAX_REPORTED_LINES) {
+            message.append("\n...");
+        }
+        return message.toString();
+    }
+
+    /**
+     * Builds an index of the member names of the loaded document, which {@link #search(String, int)}
+     * uses from then on. The edits keep it up to date until another document is loaded.
+     *
+     * @return the size of the index, or a message if no regular document is loaded
+     */
+    public String buildKeyIndex() {
+        if(jsonObject == null)
+            return "No file opened";
+        if (jsonObject instanceof LazyJsonComposite)
+            return "Lazily loaded documents cannot be indexed";
+
+        keyIndex = KeyIndex.build(jsonObject);
+        return "Key index built: " + keyIndex.keyCount() + " keys, " + keyIndex.occurrenceCount() + " members";
+    }
+
     /**
      * Finds all values whose key matches {@code key} anywhere in the document.
      *
@@ -204,36 +347,201 @@ public class JsonFileHandler {
      * @return formatted list or not-found message
      */
     public String search(String key) {
+        return search(key, Integer.MAX_VALUE);
+    }
 
-        if(jsonObject == null)
-            return "No file opened";
+    /**
+     * Finds the first {@code limit} values whose key matches {@code key}, in document order.
+     *
+     * @param key   property name
+     * @param limit maximum number of values, at least 1
+     * @return formatted list or not-found message
+     */
+    public String search(String key, int limit) {
+        StringBuilder sb = new StringBuilder();
+        search(key, limit, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Finds the first {@code limit} values whose key matches {@code key}, in document order. Each
+     * value is written to {@code out} and flushed as soon as it is found, and the document is not
+     * walked any further once the limit is reached. If a key index was built, only the matches are
+     * visited; otherwise large documents are searched in parallel when there is no limit.
+     *
+     * @param key   property name
+     * @param limit maximum number of values, at least 1
+     * @param out   receives the formatted list or the not-found message
+     */
+    public void search(String key, int limit, Appendable out) {
+
+        if(jsonObject == null) {
+            append(out, "No file opened");
+            return;
+        }
+
+        Consumer<JsonSink> search;
+        if (keyIndex != null)
+            search = sink -> keyIndex.search(jsonObject, key, sink);
+        else if (limit == Integer.MAX_VALUE)
+            search = sink -> ParallelSearch.search(jsonObject, key, sink);
+        else
+            search = sink -> jsonObject.search(key, sink);
 
-        JsonArray valuesFound = jsonObject.search(key);
-        return valuesFound.isEmpty() ? "No values with the key \"" + key + "\"" : formatStructuredJson(valuesFound, 1);
+        if (!writeMatches(out, JsonFormat.PRETTY, limit, search))
+            append(out, "No values with the key \"" + key + "\"");
     }
 
+    /**
+     * Runs a JSONPath query and lists its matches in the order they are found.
+     *
+     * @param query  query text, see {@link JsonQuery}
+     * @param format layout of the output
+     * @return the matches as an array, or a not-found / error message
+     */
+    public String query(String query, JsonFormat format) {
+        StringBuilder sb = new StringBuilder();
+        query(query, format, sb);
+        return sb.toString();
+    }
 
     /**
-     * @return pretty-printed version of the current JSON
+     * Runs a JSONPath query and lists its matches in the order they are found. Matches are
+     * written to {@code out} and flushed as the query produces them rather than collected first.
+     *
+     * @param query  query text, see {@link JsonQuery}
+     * @param format layout of the output
+     * @param out    receives the matches as an array, or a not-found / error message
      */
-    public String getStructuredJson() {
-        if(jsonObject == null)
-            return "No file opened";
-        return formatStructuredJson(jsonObject, 0);
+    public void query(String query, JsonFormat format, Appendable out) {
+
+        if(jsonObject == null) {
+            append(out, "No file opened");
+            return;
+        }
+
+        JsonQuery compiled;
+        try {
+            compiled = JsonQuery.compile(query);
+        } catch (InvalidJsonPathException ex) {
+            append(out, ex.getMessage());
+            return;
+        }
+
+        if (!writeMatches(out, format, Integer.MAX_VALUE, sink -> compiled.evaluate(jsonObject, sink)))
+            append(out, "No matches for \"" + compiled + "\"");
     }
 
     /**
-     * Pretty prints a JSON subtree with indentation.
+     * Writes the values a search passes to its sink as one array, each as soon as it arrives.
+     * The output is flushed after every value, so a console shows it while the search goes on.
      *
-     * @param json  element to print
-     * @param depth current indentation level (1 = root)
-     * @return string representation with line breaks and tabs
+     * @param out    destination of the array
+     * @param format layout of the output
+     * @param limit  number of values after which the search is told to stop
+     * @param search runs the search with the given sink
+     * @return {@code false} if no value was found, in which case nothing was written
      */
-    private static String formatStructuredJson(JsonElement json, int depth) {
-       return json.toJson(depth);
+    private static boolean writeMatches(Appendable out, JsonFormat format, int limit, Consumer<JsonSink> search) {
+        JsonWriter writer = new JsonWriter(out, format);
+        JsonArrayWriter matches = new JsonArrayWriter(writer, 1);
+        try {
+            search.accept(match -> {
+                try {
+                    matches.add(match);
+                    writer.flush();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                return matches.count() < limit;
+            });
+            if (matches.count() == 0)
+                return false;
+            matches.finish();
+            writer.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return true;
+    }
+
+    private static void append(Appendable out, String text) {
+        try {
+            out.append(text);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
     }
 
 
+    /**
+     * @return root of the loaded document, or {@code null} if none is loaded
+     */
+    public JsonElement getDocument() {
+        return jsonObject;
+    }
+
+    /**
+     * Looks up the element at {@code jsonPath} without modifying the document.
+     *
+     * @param jsonPath dot / bracket path, e.g. {@code root.array[0]}
+     * @return the element found
+     * @throws NotFoundException if no document is loaded or the path does not exist
+     */
+    public JsonElement getValueAt(String jsonPath) throws NotFoundException {
+        if (jsonObject == null)
+            throw new NotFoundException("No file opened");
+        return jsonObject.getValueAt(JsonPath.compile(jsonPath), 0, "Main object");
+    }
+
+    /**
+     * Describes how the loaded document is held in memory.
+     *
+     * @return one line per statistic, or a message if no document is loaded
+     */
+    public String getStatistics() {
+        if (jsonObject == null)
+            return "No file opened";
+
+        StringBuilder sb = new StringBuilder();
+        if (keyTable != null) {
+            sb.append(String.format("Key interning: %d lookups, %d hits (%.1f%%), %d distinct keys",
+                    keyTable.getLookups(), keyTable.getHits(), keyTable.getHitRate() * 100, keyTable.size()));
+        }
+        if (KeyFilter.getChecks() > 0) {
+            if (sb.length() > 0)
+                sb.append('\n');
+            long checks = KeyFilter.getChecks();
+            long skips = KeyFilter.getSkips();
+            sb.append(String.format("Key filters: %d subtrees checked by search, %d may hold the key, %d skipped (%.1f%%)",
+                    checks, checks - skips, skips, skips * 100.0 / checks));
+        }
+        if (keyIndex != null) {
+            if (sb.length() > 0)
+                sb.append('\n');
+            sb.append("Key index: ").append(keyIndex.keyCount()).append(" keys, ")
+                    .append(keyIndex.occurrenceCount()).append(" members");
+        }
+        return sb.length() == 0 ? "No statistics available" : sb.toString();
+    }
+
+    /**
+     * @return pretty-printed version of the current JSON
+     */
+    public String getStructuredJson() {
+        return getStructuredJson(JsonFormat.PRETTY);
+    }
+
+    /**
+     * @param format layout of the output
+     * @return the current JSON in the given layout
+     */
+    public String getStructuredJson(JsonFormat format) {
+        if(jsonObject == null)
+            return "No file opened";
+        return jsonObject.toJson(0, format);
+    }
+
     /**
      * Closes the file and clears the in-memory state.
      *
@@ -243,11 +551,17 @@ public class JsonFileHandler {
         if(jsonObject == null)
             return "No file opened";
         jsonObject = null;
+        keyTable = null;
+        keyIndex = null;
+        KeyFilter.resetStatistics();
+        journal.clear();
         return "File closed";
     }
 
     /**
-     * Creates missing path elements then writes {@code jsonValue} there.
+     * Creates missing path elements then writes {@code jsonValue} there. The missing elements are
+     * added to a copy of the containers along the path, so an invalid path leaves the document
+     * unchanged.
      *
      * @param path      destination path
      * @param jsonValue JSON literal or fragment to insert
@@ -261,19 +575,38 @@ public class JsonFileHandler {
             return "Error in parsing <to> parameter: " + parseResult.errorMessage;
         }
 
+        materialize();
         JsonElement value = parseResult.parsedData;
-        Queue<String> pathQueue = parseJsonPath(path);
+        JsonPath jsonPath = JsonPath.compile(path);
+        int created = firstMissing(jsonPath);
+        JsonElement previous = created == 0 ? valueAt(jsonObject, jsonPath) : null;
 
         try {
-            JsonElement copy = jsonObject.deepCopy();
-            copy.completePath(pathQueue);
+            JsonElement copy = jsonObject.copyPath(jsonPath, 0);
+            copy.completePath(jsonPath, 0);
             jsonObject = copy;
         } catch (InvalidJsonPathException e) {
             return e.getMessage();
         }
 
         try {
-            assign(parseJsonPath(path), jsonObject, "Main object", value);
+            String result = assign(jsonPath, jsonObject, "Main object", value);
+            if (isApplied(result)) {
+                String description = "create " + path + " " + jsonValue;
+                if (created == 0) {
+                    if (previous != null) {
+                        reindex(jsonPath, null, previous, value);
+                        journal.record(new EditJournal.Entry(description,
+                                new EditJournal.Change(jsonPath, previous, value, -1)));
+                    }
+                } else {
+                    JsonPath createdPath = jsonPath.prefix(created);
+                    JsonElement createdValue = valueAt(jsonObject, createdPath);
+                    reindex(createdPath, null, null, createdValue);
+                    journal.record(new EditJournal.Entry(description,
+                            new EditJournal.Change(createdPath, null, createdValue, positionOf(createdPath))));
+                }
+            }
         } catch (NotFoundException ex) {
             return ex.getMessage();
         }
@@ -281,5 +614,183 @@ public class JsonFileHandler {
         return "Element created";
     }
 
+    /**
+     * Reverts the most recent edit that has not been undone yet.
+     *
+     * @return the edit that was undone, or a message if there is none
+     */
+    public String undo() {
+        if(jsonObject == null)
+            return "No file opened";
+
+        EditJournal.Entry entry = journal.peekUndo();
+        if (entry == null)
+            return "Nothing to undo";
+
+        for (int i = entry.changes.length - 1; i >= 0; i--) {
+            EditJournal.Change change = entry.changes[i];
+            String result = apply(change.path, change.after, change.before, change.position);
+            if (!isApplied(result))
+                return result;
+        }
+        journal.undone();
+        return "Undone: " + entry.description;
+    }
+
+    /**
+     * Applies the most recently undone edit again.
+     *
+     * @return the edit that was redone, or a message if there is none
+     */
+    public String redo() {
+        if(jsonObject == null)
+            return "No file opened";
+
+        EditJournal.Entry entry = journal.peekRedo();
+        if (entry == null)
+            return "Nothing to redo";
+
+        for (EditJournal.Change change : entry.changes) {
+            String result = apply(change.path, change.before, change.after, change.position);
+            if (!isApplied(result))
+                return result;
+        }
+        journal.redone();
+        return "Redone: " + entry.description;
+    }
+
+    /**
+     * Changes how many edits are kept for {@link #undo()}.
+     *
+     * @param maxEntries maximum number of edits, or {@code null} to keep the current limit
+     * @param maxBytes   maximum estimated size of the values kept, 0 for no limit, or {@code null}
+     *                   to keep the current limit
+     * @return the resulting state of the history
+     */
+    public String setHistoryLimits(Integer maxEntries, Long maxBytes) {
+        journal.setLimits(maxEntries != null ? maxEntries : journal.getMaxEntries(),
+                maxBytes != null ? maxBytes : journal.getMaxBytes());
+        return getHistory();
+    }
+
+    /**
+     * @return how many edits can be undone and redone, and the limits of the history
+     */
+    public String getHistory() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(journal.undoSize()).append(" edits can be undone, ")
+                .append(journal.redoSize()).append(" can be redone (limit: ")
+                .append(journal.getMaxEntries()).append(" edits, ");
+        if (journal.getMaxBytes() == 0)
+            sb.append("no byte limit)");
+        else
+            sb.append(journal.getMaxBytes()).append(" bytes, about ").append(journal.getBytes()).append(" in use)");
+        return sb.toString();
+    }
+
+    /**
+     * Replaces the value at {@code path} that an edit left as {@code from} with {@code to}.
+     * A {@code null} value stands for a member or element that does not exist.
+     *
+     * @return the message of the underlying assignment or insertion
+     */
+    private String apply(JsonPath path, JsonElement from, JsonElement to, int position) {
+        int[] located = to == null ? locate(path) : null;
+        String result;
+        try {
+            if (to == null)
+                result = assign(path, jsonObject, "Main object", Nothing.INSTANCE);
+            else if (from == null)
+                result = jsonObject.insert(path, 0, "Main object", position, to);
+            else
+                result = assign(path, jsonObject, "Main object", to);
+        } catch (NotFoundException ex) {
+            return ex.getMessage();
+        }
+        if (isApplied(result))
+            reindex(path, located, from, to);
+        return result;
+    }
+
+    /**
+     * @return the positions of {@code path} in the document if a key index is kept, otherwise {@code null}
+     */
+    private int[] locate(JsonPath path) {
+        return keyIndex == null ? null : KeyIndex.locate(jsonObject, path);
+    }
+
+    /**
+     * Brings the key index in line with a change that has just been applied, in which the value at
+     * {@code path} went from {@code before} to {@code after}; {@code null} stands for a member or
+     * element that does not exist. A removed value can no longer be located, so its positions
+     * must be taken before the change and passed as {@code removedAt}. If the change cannot be
+     * located the index is dropped rather than left out of date.
+     */
+    private void reindex(JsonPath path, int[] removedAt, JsonElement before, JsonElement after) {
+        if (keyIndex == null)
+            return;
+        int[] at = after == null ? removedAt : KeyIndex.locate(jsonObject, path);
+        if (at == null) {
+            keyIndex = null;
+        } else if (after == null) {
+            keyIndex.removed(at);
+        } else if (before == null) {
+            int last = path.length() - 1;
+            keyIndex.inserted(at, path.isIndex(last) ? null : path.token(last), after);
+        } else {
+            keyIndex.replaced(at, after);
+        }
+    }
+
+    /**
+     * @return {@code true} if {@code result} reports that an edit was carried out
+     */
+    private static boolean isApplied(String result) {
+        return result.equals("Element set") || result.equals("Element removed") || result.equals("Element inserted");
+    }
+
+    /**
+     * @return the element at {@code path} in {@code root}, or {@code null} if there is none
+     */
+    private static JsonElement valueAt(JsonElement root, JsonPath path) {
+        try {
+            return root.getValueAt(path, 0, "Main object");
+        } catch (NotFoundException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the member position or array index that the last segment of {@code path} refers to,
+     *         or -1 if it cannot be determined
+     */
+    private int positionOf(JsonPath path) {
+        int last = path.length() - 1;
+        if (path.isIndex(last))
+            return path.index(last);
+        JsonElement parent = valueAt(jsonObject, path.prefix(last));
+        return parent instanceof JsonObject ? ((JsonObject) parent).indexOf(path.token(last)) : -1;
+    }
+
+    /**
+     * Walks a path one segment at a time.
+     *
+     * @return the number of segments up to and including the first one that does not exist, or 0
+     *         if the whole path exists
+     */
+    private int firstMissing(JsonPath path) {
+        JsonElement current = jsonObject;
+        String previousKey = "Main object";
+        for (int i = 0; i < path.length(); i++) {
+            try {
+                current = current.getValueAt(path.prefix(i + 1), i, previousKey);
+            } catch (NotFoundException ex) {
+                return i + 1;
+            }
+            previousKey = path.token(i);
+        }
+        return 0;
+    }
+
 
 }
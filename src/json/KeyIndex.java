@@ -0,0 +1,375 @@
+package src.json;
+
+import src.json.types.JsonArray;
+import src.json.types.JsonElement;
+import src.json.types.JsonObject;
+import src.json.types.JsonPath;
+import src.json.types.JsonRow;
+import src.json.types.JsonSink;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Inverted index from member names to the places in a document where they occur, so that a
+ * search costs time in proportion to its matches instead of the size of the document.
+ * <p>
+ * A place is stored as its positional path: the position of each member or element from the root
+ * down, e.g. {@code [2, 0, 5]}. Each key's paths are kept sorted, which is the order a search
+ * walks the document in, and packed into a single int array. Positions rather than references are
+ * kept because edits copy the containers along their path, so a reference would go stale while a
+ * position stays valid. In return, an edit that adds or removes a member or element shifts the
+ * positions of the siblings after it; since those form one contiguous range in every sorted list,
+ * it is found by binary search.
+ * <p>
+ * The index does not watch the document: after every change the handler reports it through
+ * {@link #removed}, {@link #inserted} or {@link #replaced}.
+ */
+final class KeyIndex {
+
+    private final Map<String, Occurrences> occurrences;
+
+    private KeyIndex(Map<String, Occurrences> occurrences) {
+        this.occurrences = occurrences;
+    }
+
+    /**
+     * Indexes every member of a document.
+     *
+     * @param root the document
+     * @return the index
+     */
+    static KeyIndex build(JsonElement root) {
+        Map<String, Occurrences> occurrences = new HashMap<>();
+        new Collector(occurrences).collect(root, new int[0]);
+        return new KeyIndex(occurrences);
+    }
+
+    /**
+     * Passes the values of all members named {@code key} to {@code sink}, in document order.
+     *
+     * @param root the indexed document
+     * @param key  member name
+     * @param sink receiver of the values
+     * @return {@code false} if the sink stopped the search
+     */
+    boolean search(JsonElement root, String key, JsonSink sink) {
+        Occurrences list = occurrences.get(key);
+        if (list == null)
+            return true;
+        for (int i = 0; i < list.size; i++) {
+            JsonElement value = root;
+            for (int p = list.start(i); p < list.ends[i]; p++) {
+                value = value.child(list.data[p]);
+            }
+            if (!sink.accept(value))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of distinct member names
+     */
+    int keyCount() {
+        return occurrences.size();
+    }
+
+    /**
+     * @return the number of members indexed
+     */
+    long occurrenceCount() {
+        long count = 0;
+        for (Occurrences list : occurrences.values()) {
+            count += list.size;
+        }
+        return count;
+    }
+
+    /**
+     * Resolves a path to positions.
+     *
+     * @param root document to resolve the path in
+     * @param path the path
+     * @return the position of each segment, or {@code null} if the path does not exist
+     */
+    static int[] locate(JsonElement root, JsonPath path) {
+        int[] positions = new int[path.length()];
+        JsonElement current = root;
+        for (int depth = 0; depth < path.length(); depth++) {
+            int position;
+            if (path.isIndex(depth))
+                position = path.index(depth);
+            else if (current instanceof JsonObject)
+                position = ((JsonObject) current).indexOf(path.token(depth));
+            else if (current instanceof JsonRow)
+                position = ((JsonRow) current).indexOf(path.token(depth));
+            else
+                return null;
+
+            current = current.child(position);
+            if (current == null)
+                return null;
+            positions[depth] = position;
+        }
+        return positions;
+    }
+
+    /**
+     * Records that the member or element at {@code at} was removed, together with everything
+     * below it.
+     *
+     * @param at positions of the removed value, located before the removal
+     */
+    void removed(int[] at) {
+        occurrences.values().removeIf(list -> {
+            list.remove(at, at.length);
+            list.shift(at, -1);
+            return list.size == 0;
+        });
+    }
+
+    /**
+     * Records that a new member or element was added at {@code at}, in front of the siblings that
+     * were at that position or after it.
+     *
+     * @param at    positions of the new value
+     * @param key   name of the new member, or {@code null} for an array element
+     * @param value the new value
+     */
+    void inserted(int[] at, String key, JsonElement value) {
+        for (Occurrences list : occurrences.values()) {
+            list.shift(at, 1);
+        }
+        if (key != null)
+            add(key, new Occurrences(at));
+        addAll(value, at);
+    }
+
+    /**
+     * Records that the value of the member or element at {@code at} was replaced.
+     *
+     * @param at    positions of the value
+     * @param value the new value
+     */
+    void replaced(int[] at, JsonElement value) {
+        occurrences.values().removeIf(list -> {
+            list.removeBelow(at);
+            return list.size == 0;
+        });
+        addAll(value, at);
+    }
+
+    /**
+     * Indexes the members below {@code value}, which sits at {@code at}.
+     */
+    private void addAll(JsonElement value, int[] at) {
+        Map<String, Occurrences> added = new HashMap<>();
+        new Collector(added).collect(value, at);
+        added.forEach(this::add);
+    }
+
+    private void add(String key, Occurrences list) {
+        Occurrences existing = occurrences.get(key);
+        if (existing == null)
+            occurrences.put(key, list);
+        else
+            existing.insert(list);
+    }
+
+    /**
+     * Walks a value in document order and appends the paths of its members to the list of their key.
+     */
+    private static final class Collector {
+        private final Map<String, Occurrences> found;
+        private int[] path = new int[16];
+
+        Collector(Map<String, Occurrences> found) {
+            this.found = found;
+        }
+
+        void collect(JsonElement value, int[] at) {
+            if (path.length <= at.length)
+                path = Arrays.copyOf(path, at.length * 2);
+            System.arraycopy(at, 0, path, 0, at.length);
+            collect(value, at.length);
+        }
+
+        private void collect(JsonElement value, int depth) {
+            if (value.size() == 0 || value instanceof JsonArray && ((JsonArray) value).isPacked())
+                return;
+            if (path.length == depth)
+                path = Arrays.copyOf(path, depth * 2);
+
+            value.forEachChild((key, index, child) -> {
+                path[depth] = index;
+                if (key != null)
+                    found.computeIfAbsent(key, k -> new Occurrences()).append(path, depth + 1);
+                collect(child, depth + 1);
+                return true;
+            });
+        }
+    }
+
+    /**
+     * The sorted positional paths of one key, stored back to back.
+     */
+    private static final class Occurrences {
+        private int[] data = new int[8];
+        /** End of each path in {@link #data}; a path starts where the previous one ends. */
+        private int[] ends = new int[2];
+        private int size;
+
+        Occurrences() {
+        }
+
+        Occurrences(int[] path) {
+            append(path, path.length);
+        }
+
+        int start(int i) {
+            return i == 0 ? 0 : ends[i - 1];
+        }
+
+        private int length() {
+            return size == 0 ? 0 : ends[size - 1];
+        }
+
+        void append(int[] path, int length) {
+            int start = length();
+            if (start + length > data.length)
+                data = Arrays.copyOf(data, Math.max(data.length * 2, start + length));
+            if (size == ends.length)
+                ends = Arrays.copyOf(ends, size * 2);
+            System.arraycopy(path, 0, data, start, length);
+            ends[size++] = start + length;
+        }
+
+        /**
+         * Compares path {@code i} with the first {@code length} positions of {@code path}; a path
+         * comes before the paths it is a prefix of.
+         */
+        private int compare(int i, int[] path, int length) {
+            int start = start(i);
+            int own = ends[i] - start;
+            for (int p = 0; p < Math.min(own, length); p++) {
+                int c = Integer.compare(data[start + p], path[p]);
+                if (c != 0)
+                    return c;
+            }
+            return Integer.compare(own, length);
+        }
+
+        /**
+         * @return the first path that does not come before {@code path}
+         */
+        private int lowerBound(int[] path, int length) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compare(mid, path, length) < 0)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            return low;
+        }
+
+        /**
+         * @return the first path from {@code from} on that does not start with {@code prefix}
+         */
+        private int prefixEnd(int from, int[] prefix, int length) {
+            int low = from;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (startsWith(mid, prefix, length))
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            return low;
+        }
+
+        private boolean startsWith(int i, int[] prefix, int length) {
+            int start = start(i);
+            if (ends[i] - start < length)
+                return false;
+            for (int p = 0; p < length; p++) {
+                if (data[start + p] != prefix[p])
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * Removes the paths that start with the first {@code length} positions of {@code prefix}.
+         */
+        void remove(int[] prefix, int length) {
+            int from = lowerBound(prefix, length);
+            removeRange(from, prefixEnd(from, prefix, length));
+        }
+
+        /**
+         * Removes the paths that start with {@code prefix} and are longer than it.
+         */
+        void removeBelow(int[] prefix) {
+            int from = lowerBound(prefix, prefix.length);
+            if (from < size && ends[from] - start(from) == prefix.length)
+                from++;
+            removeRange(from, prefixEnd(from, prefix, prefix.length));
+        }
+
+        private void removeRange(int from, int to) {
+            if (from == to)
+                return;
+            int dataFrom = start(from);
+            int dataTo = start(to);
+            int removed = dataTo - dataFrom;
+            System.arraycopy(data, dataTo, data, dataFrom, length() - dataTo);
+            for (int i = to; i < size; i++) {
+                ends[i - (to - from)] = ends[i] - removed;
+            }
+            size -= to - from;
+        }
+
+        /**
+         * Adds {@code delta} to the last position of {@code at} in every path that passes through
+         * a sibling of {@code at} at or after it.
+         */
+        void shift(int[] at, int delta) {
+            int depth = at.length - 1;
+            int from = lowerBound(at, at.length);
+            int to = prefixEnd(from, at, depth);
+            for (int i = from; i < to; i++) {
+                data[start(i) + depth] += delta;
+            }
+        }
+
+        /**
+         * Adds paths that all share a prefix that none of the current paths extends.
+         */
+        void insert(Occurrences other) {
+            int at = other.size == 0 ? size : lowerBound(other.data, other.ends[0]);
+            int dataAt = start(at);
+            int added = other.length();
+            int length = length();
+            if (length + added > data.length)
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + added));
+            if (size + other.size > ends.length)
+                ends = Arrays.copyOf(ends, Math.max(ends.length * 2, size + other.size));
+
+            System.arraycopy(data, dataAt, data, dataAt + added, length - dataAt);
+            System.arraycopy(other.data, 0, data, dataAt, added);
+            for (int i = size - 1; i >= at; i--) {
+                ends[i + other.size] = ends[i] + added;
+            }
+            for (int i = 0; i < other.size; i++) {
+                ends[at + i] = other.ends[i] + dataAt;
+            }
+            size += other.size;
+        }
+    }
+}
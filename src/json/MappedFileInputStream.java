@@ -0,0 +1,90 @@
+package src.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file through memory mappings instead of copying it onto the heap.
+ * <p>
+ * A single {@link MappedByteBuffer} cannot exceed 2 GB, so larger files are mapped as a sequence
+ * of regions that are read one after another.
+ */
+public class MappedFileInputStream extends InputStream {
+    /** Size of each mapped region. */
+    private static final long REGION_SIZE = 1L << 30;
+
+    private final MappedByteBuffer[] regions;
+    private int current;
+
+    /**
+     * Maps the whole file read-only.
+     *
+     * @param path file to map
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public MappedFileInputStream(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int count = (int) Math.max(1, (size + REGION_SIZE - 1) / REGION_SIZE);
+            regions = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long start = i * REGION_SIZE;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(REGION_SIZE, size - start));
+            }
+        }
+    }
+
+    /**
+     * @return a new stream over the same mappings, positioned at the start of the file
+     */
+    public MappedFileInputStream rewind() {
+        return new MappedFileInputStream(regions);
+    }
+
+    private MappedFileInputStream(MappedByteBuffer[] regions) {
+        this.regions = new MappedByteBuffer[regions.length];
+        for (int i = 0; i < regions.length; i++) {
+            this.regions[i] = regions[i].duplicate().rewind();
+        }
+    }
+
+    @Override
+    public int read() {
+        if (!advance())
+            return -1;
+        return regions[current].get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0)
+            return 0;
+        if (!advance())
+            return -1;
+        MappedByteBuffer region = regions[current];
+        int n = Math.min(len, region.remaining());
+        region.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current < regions.length ? regions[current].remaining() : 0;
+    }
+
+    /**
+     * Moves to the next region once the current one is exhausted.
+     *
+     * @return {@code false} at end of file
+     */
+    private boolean advance() {
+        while (current < regions.length && !regions[current].hasRemaining()) {
+            current++;
+        }
+        return current < regions.length;
+    }
+}
@@ -0,0 +1,85 @@
+package src.json.Parsing;
+
+import src.exception.JsonParseException;
+import src.json.types.JsonBoolean;
+import src.json.types.JsonNull;
+import src.json.types.JsonString;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+
+/**
+ * Push parser that reports a JSON document to a {@link JsonHandler} as a sequence of events.
+ * <p>
+ * No {@code JsonObject} or {@code JsonArray} nodes are built: tokens are read from a
+ * {@link JsonReader} and handed to the handler as they are recognised, so memory use does
+ * not depend on the size of the document.
+ */
+public class JsonEventParser {
+
+    /**
+     * Parses JSON text and reports it to {@code handler}.
+     *
+     * @param json    the raw JSON text
+     * @param handler receiver of the events
+     * @return {@code true} if the whole document was parsed, {@code false} if the handler stopped early
+     * @throws JsonParseException if the input is not valid JSON
+     */
+    public static boolean parse(String json, JsonHandler handler) throws JsonParseException {
+        try {
+            return parse(new StringReader(json), handler);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Parses UTF-8 encoded JSON and reports it to {@code handler}.
+     *
+     * @param in      source of JSON bytes; it is not closed
+     * @param handler receiver of the events
+     * @return {@code true} if the whole document was parsed, {@code false} if the handler stopped early
+     * @throws IOException        if the stream cannot be read
+     * @throws JsonParseException if the input is not valid JSON
+     */
+    public static boolean parse(InputStream in, JsonHandler handler) throws IOException, JsonParseException {
+        return drive(new JsonReader(in), handler);
+    }
+
+    /**
+     * Parses JSON from a character stream and reports it to {@code handler}.
+     *
+     * @param reader  source of JSON text; it is not closed
+     * @param handler receiver of the events
+     * @return {@code true} if the whole document was parsed, {@code false} if the handler stopped early
+     * @throws IOException        if the reader fails
+     * @throws JsonParseException if the input is not valid JSON
+     */
+    public static boolean parse(Reader reader, JsonHandler handler) throws IOException, JsonParseException {
+        return drive(new JsonReader(reader), handler);
+    }
+
+    private static boolean drive(JsonReader reader, JsonHandler handler) throws IOException, JsonParseException {
+        JsonToken token;
+        while ((token = reader.nextToken()) != JsonToken.END_DOCUMENT) {
+            boolean proceed;
+            switch (token) {
+                case BEGIN_OBJECT: proceed = handler.startObject(); break;
+                case END_OBJECT:   proceed = handler.endObject(); break;
+                case BEGIN_ARRAY:  proceed = handler.startArray(); break;
+                case END_ARRAY:    proceed = handler.endArray(); break;
+                case NAME:         proceed = handler.key(reader.getString()); break;
+                case STRING:       proceed = handler.value(new JsonString(reader.getString())); break;
+                case NUMBER:       proceed = handler.value(reader.getNumber()); break;
+                case BOOLEAN:      proceed = handler.value(new JsonBoolean(reader.getBoolean())); break;
+                case NULL:         proceed = handler.value(JsonNull.INSTANCE); break;
+                default:           proceed = true; break;
+            }
+            if (!proceed)
+                return false;
+        }
+        return true;
+    }
+}
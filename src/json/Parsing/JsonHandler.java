@@ -0,0 +1,39 @@
+package src.json.Parsing;
+
+import src.json.types.JsonPrimitive;
+
+/**
+ * Receives the events produced by {@link JsonEventParser} in document order.
+ * <p>
+ * Every callback returns whether parsing should continue; returning {@code false} stops the
+ * parser immediately without reading the rest of the input. All callbacks default to
+ * continuing, so a handler only needs to override the events it is interested in.
+ */
+public interface JsonHandler {
+
+    /** Called at the opening brace of an object. */
+    default boolean startObject() { return true; }
+
+    /** Called at the closing brace of an object. */
+    default boolean endObject() { return true; }
+
+    /** Called at the opening bracket of an array. */
+    default boolean startArray() { return true; }
+
+    /** Called at the closing bracket of an array. */
+    default boolean endArray() { return true; }
+
+    /**
+     * Called for every member name; the member's value follows as the next event.
+     *
+     * @param name member name as written in the source
+     */
+    default boolean key(String name) { return true; }
+
+    /**
+     * Called for every string, number, boolean and {@code null}.
+     *
+     * @param value the scalar value
+     */
+    default boolean value(JsonPrimitive value) { return true; }
+}
@@ -0,0 +1,44 @@
+package src.json.Parsing;
+
+import src.json.types.JsonLines;
+
+import java.util.List;
+
+/** Holds the records of a JSON Lines document together with the lines that failed to parse. */
+public class JsonLinesParseResult {
+    /**
+     * Every record in file order, one per line; blank lines and lines that failed to parse are
+     * kept as {@link src.json.types.JsonRawRecord} values holding their text.
+     */
+    public JsonLines parsedData;
+    /** One message per invalid line, prefixed with its 1-based line number. */
+    public List<String> errorMessages;
+    /** Message describing a failure to read the input, or {@code null}. */
+    public String readError;
+    /** Symbol table of the member names of all records, or {@code null}. */
+    public KeyTable keyTable;
+
+    /**
+     * @param parsedData    the records
+     * @param errorMessages messages for the invalid lines
+     */
+    public JsonLinesParseResult(JsonLines parsedData, List<String> errorMessages) {
+        this.parsedData = parsedData;
+        this.errorMessages = errorMessages;
+    }
+
+    /**
+     * @param readError why the input could not be read
+     */
+    public JsonLinesParseResult(String readError) {
+        this.readError = readError;
+        this.errorMessages = List.of();
+    }
+
+    /**
+     * @return {@code true} if the input was read and every line is valid
+     */
+    public boolean isSuccess() {
+        return readError == null && errorMessages.isEmpty();
+    }
+}
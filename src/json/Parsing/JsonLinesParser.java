@@ -0,0 +1,102 @@
+package src.json.Parsing;
+
+import src.json.types.JsonElement;
+import src.json.types.JsonLines;
+import src.json.types.JsonRawRecord;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Parses JSON Lines (NDJSON) input, where every line is a separate JSON value.
+ * <p>
+ * Lines are read in batches and each batch is split into one contiguous range per worker of the
+ * common pool. A range is parsed line by line with its own {@link KeyTable}, and each worker keeps
+ * its table from batch to batch, so records share their key strings without any locking.
+ * <p>
+ * An invalid line does not stop the parse. It is reported with its line number and kept as a
+ * {@link JsonRawRecord}, so later records keep their index and saving writes it back unchanged.
+ * Blank lines are kept the same way without being parsed.
+ */
+public class JsonLinesParser {
+    /** Number of lines handed to the parallel parse at once. */
+    private static final int BATCH_SIZE = 8192;
+
+    /**
+     * Parses every line of {@code reader}.
+     *
+     * @param reader source of the document; it is not closed
+     * @return the records and the messages of the lines that failed
+     */
+    public static JsonLinesParseResult parse(Reader reader) {
+        List<JsonElement> records = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        BufferedReader lines = new BufferedReader(reader);
+
+        KeyTable[] tables = new KeyTable[Math.max(1, ForkJoinPool.getCommonPoolParallelism())];
+        for (int i = 0; i < tables.length; i++) {
+            tables[i] = new KeyTable();
+        }
+
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        List<Integer> lineNumbers = new ArrayList<>(BATCH_SIZE);
+        int lineNumber = 0;
+        try {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                batch.add(line);
+                lineNumbers.add(lineNumber);
+                if (batch.size() == BATCH_SIZE) {
+                    parseBatch(batch, lineNumbers, tables, records, errors);
+                }
+            }
+            parseBatch(batch, lineNumbers, tables, records, errors);
+        } catch (IOException ex) {
+            return new JsonLinesParseResult("Error reading input: " + ex.getMessage());
+        }
+        KeyTable keys = tables[0];
+        for (int i = 1; i < tables.length; i++) {
+            keys.merge(tables[i]);
+        }
+
+        JsonLines document = new JsonLines(records);
+        document.summarizeKeys();
+        JsonLinesParseResult result = new JsonLinesParseResult(document, errors);
+        result.keyTable = keys;
+        return result;
+    }
+
+    private static void parseBatch(List<String> batch, List<Integer> lineNumbers, KeyTable[] tables,
+                                   List<JsonElement> records, List<String> errors) {
+        JsonParseResult[] results = new JsonParseResult[batch.size()];
+        int perRange = (batch.size() + tables.length - 1) / tables.length;
+        IntStream.range(0, tables.length)
+                .parallel()
+                .forEach(range -> {
+                    int last = Math.min(batch.size(), (range + 1) * perRange);
+                    for (int i = range * perRange; i < last; i++) {
+                        if (!batch.get(i).isBlank())
+                            results[i] = new JsonParser(batch.get(i), tables[range]).parse();
+                    }
+                });
+
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                records.add(new JsonRawRecord(batch.get(i)));
+            } else if (results[i].isSuccess()) {
+                records.add(results[i].parsedData);
+            } else {
+                records.add(new JsonRawRecord(batch.get(i)));
+                errors.add("Line " + lineNumbers.get(i) + ": " + results[i].errorMessage);
+            }
+        }
+        batch.clear();
+        lineNumbers.clear();
+    }
+}
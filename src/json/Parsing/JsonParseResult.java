@@ -10,6 +10,8 @@ public class JsonParseResult {
     public String errorMessage;
     /** Offset in the input where the error occurred, or -1. */
     public int errorPosition;
+    /** Symbol table of the member names of the parsed document, or {@code null}. */
+    public KeyTable keyTable;
 
     /**
      * Success constructor.
@@ -22,6 +24,17 @@ public class JsonParseResult {
         this.errorPosition = -1;
     }
 
+    /**
+     * Success constructor that also keeps the document's symbol table.
+     *
+     * @param parsedData root of the parsed JSON tree
+     * @param keyTable   member names interned while parsing
+     */
+    public JsonParseResult(JsonElement parsedData, KeyTable keyTable) {
+        this(parsedData);
+        this.keyTable = keyTable;
+    }
+
     /**
      * Failure constructor.
      *
@@ -3,21 +3,111 @@ package src.json.Parsing;
 import src.exception.JsonParseException;
 import src.json.types.*;
 
-import java.util.*;
-import java.util.regex.*;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
 
 /**
  * Recursive‑descent parser for a limited JSON grammar.
+ * <p>
+ * The parser is a hand-written cursor scanner: it walks the input once, character by character,
+ * and never copies the remaining text or runs a regular expression per token, so parsing is
+ * linear in the size of the document.
  */
 public class JsonParser {
+    /** Documents at least this many characters long whose root is an array are parsed in parallel. */
+    public static final int PARALLEL_THRESHOLD = 1 << 20;
+
+    /** Whole numbers with at most this many digits always fit in a {@code long}. */
+    private static final int MAX_LONG_DIGITS = 18;
+    /** Decimals with at most this many significant digits survive a round trip through {@code double}. */
+    private static final int MAX_EXACT_DOUBLE_DIGITS = 15;
+    /** Longest excerpt of the input quoted after "before" in an error message. */
+    static final int EXCERPT_LENGTH = 30;
+    /** Largest power of ten that a {@code double} represents exactly. */
+    private static final int MAX_EXACT_POWER = 22;
+    private static final double[] POWERS_OF_TEN = new double[MAX_EXACT_POWER + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_EXACT_POWER; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /** The text being parsed. */
+    private final String json;
+
     /** Current read position in the input. */
-    private static int index;
+    private int index;
+
+    /** Offset of the first non-whitespace character; reported positions are relative to it. */
+    private final int begin;
+
+    /** Offset just past the last non-whitespace character. */
+    private final int end;
 
-    private static final Pattern STRING_PATTERN = Pattern.compile("\"(\\\\.|[^\"])*\"");
-    private static final Pattern STRING_PATTERN2 = Pattern.compile("\"(\\\\.|[^'])*'");
-    private static final Pattern NUMBER_PATTERN = Pattern.compile("-?\\d+(\\.\\d+)?([eE][+-]?\\d+)?");
-    private static final Pattern BOOLEAN_PATTERN = Pattern.compile("true|false");
-    private static final Pattern NULL_PATTERN = Pattern.compile("null");
+    /** String boundaries and bracket balance found by the first pass. */
+    private StructuralIndex structure;
+
+    /** Ordinal of the next string in {@link #structure} the parser has not reached yet. */
+    private int stringCursor;
+
+    /** Canonical strings for the member names parsed so far. */
+    private final KeyTable keys;
+
+    /** Key filters of the containers that are open or complete. */
+    private KeyFilter.Builder filters = new KeyFilter.Builder();
+
+    /**
+     * Creates a parser for a single document. Each instance keeps its own read position,
+     * so separate instances may be used concurrently from different threads.
+     *
+     * @param json the raw JSON text
+     */
+    public JsonParser(String json) {
+        this(json, new KeyTable());
+    }
+
+    /**
+     * Creates a parser that takes member names from an existing symbol table, so that several
+     * related documents, such as the records of a JSON Lines file, share their key strings.
+     *
+     * @param json the raw JSON text
+     * @param keys symbol table to intern member names in; it is not thread-safe
+     */
+    public JsonParser(String json, KeyTable keys) {
+        int begin = 0;
+        int end = json.length();
+        while (begin < end && json.charAt(begin) <= ' ') begin++;
+        while (end > begin && json.charAt(end - 1) <= ' ') end--;
+
+        this.json = json;
+        this.begin = begin;
+        this.end = end;
+        this.index = begin;
+        this.keys = keys;
+    }
+
+    /**
+     * Creates a parser for part of the document another parser is working on.
+     * It shares the input and the structural index but has its own read position.
+     *
+     * @param parent parser whose input is shared
+     */
+    private JsonParser(JsonParser parent) {
+        this.json = parent.json;
+        this.begin = parent.begin;
+        this.end = parent.end;
+        this.structure = parent.structure;
+        this.keys = new KeyTable();
+    }
 
     /**
      * Parses a JSON document.
@@ -26,219 +116,728 @@ public class JsonParser {
      * @return {@link JsonParseResult} containing a parse tree or error information
      */
     public static JsonParseResult parseJson(String json) {
-        index = 0;
-        json = json.trim();
-        JsonParseResult braceCheckResult = checkBraces(json);
+        return new JsonParser(json).parse();
+    }
+
+    /**
+     * Builds a JSON tree from a character stream using a {@link JsonReader},
+     * without first reading the whole input into a {@code String}.
+     * <p>
+     * Error positions and messages follow {@link #parseJson(String)}, but since the input is read
+     * only once, an unbalanced bracket is reported where the reader meets it rather than ahead of
+     * every other error. Use {@link #parseJson(Supplier)} when the input can be read again.
+     *
+     * @param reader source of JSON text; it is not closed
+     * @return {@link JsonParseResult} containing a parse tree or error information
+     */
+    public static JsonParseResult parseJson(Reader reader) {
+        JsonReader jsonReader = new JsonReader(reader);
+        KeyTable keys = new KeyTable();
+        try {
+            JsonElement result = readValue(jsonReader, jsonReader.nextToken(), keys, new KeyFilter.Builder());
+            jsonReader.nextToken();
+            return new JsonParseResult(result, keys);
+        } catch (JsonParseException ex) {
+            return new JsonParseResult(ex.getMessage(), ex.getPosition());
+        } catch (IOException ex) {
+            return new JsonParseResult("Error reading input: " + ex.getMessage(), -1);
+        }
+    }
+
+    /**
+     * Builds a JSON tree from a character stream that can be read more than once, e.g. a
+     * memory-mapped file. Like {@link #parseJson(String)}, a first pass checks that the brackets
+     * are balanced, so the same text gets the same error whichever way it is read.
+     *
+     * @param source opens a new reader at the start of the input each time it is called; the
+     *               readers are not closed
+     * @return {@link JsonParseResult} containing a parse tree or error information
+     */
+    public static JsonParseResult parseJson(Supplier<? extends Reader> source) {
+        try {
+            JsonParseResult braceCheckResult = checkBraces(source);
+            if (!braceCheckResult.isSuccess())
+                return braceCheckResult;
+        } catch (IOException ex) {
+            return new JsonParseResult("Error reading input: " + ex.getMessage(), -1);
+        }
+        return parseJson(source.get());
+    }
+
+    /**
+     * Checks the brackets of a stream with the same rules as {@link StructuralIndex}, keeping
+     * only the brackets that are open.
+     *
+     * @param source opens the input; called again to quote the input after an unclosed bracket
+     * @return a successful {@link JsonParseResult} if balanced, otherwise the same error as
+     *         {@link #parseJson(String)} gives
+     */
+    private static JsonParseResult checkBraces(Supplier<? extends Reader> source) throws IOException {
+        Reader in = source.get();
+        char[] buffer = new char[8192];
+        long[] open = new long[32];
+        char[] brackets = new char[32];
+        int depth = 0;
+        long origin = -1;
+        boolean inString = false;
+        boolean escape = false;
+
+        long offset = 0;
+        for (int read; (read = in.read(buffer)) > 0; offset += read) {
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                if (inString) {
+                    if (escape)
+                        escape = false;
+                    else if (c == '\\')
+                        escape = true;
+                    else if (c == '"')
+                        inString = false;
+                    continue;
+                }
+                if (origin < 0) {
+                    if (c <= ' ')
+                        continue;
+                    origin = offset + i;
+                }
+                switch (c) {
+                    case '"':
+                        inString = true;
+                        break;
+                    case '{':
+                    case '[':
+                        if (depth == open.length) {
+                            open = Arrays.copyOf(open, depth * 2);
+                            brackets = Arrays.copyOf(brackets, depth * 2);
+                        }
+                        open[depth] = offset + i;
+                        brackets[depth++] = c;
+                        break;
+                    case '}':
+                    case ']':
+                        if (depth == 0 || brackets[depth - 1] != (c == '}' ? '{' : '[')) {
+                            long at = offset + i;
+                            return braceError("Mismatched brace of type ", c, at - origin, readExcerpt(source.get(), at));
+                        }
+                        depth--;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        if (depth > 0) {
+            long at = open[depth - 1];
+            return braceError("Unclosed brace ", brackets[depth - 1], at - origin, readExcerpt(source.get(), at));
+        }
+        return new JsonParseResult(new JsonBoolean(true));
+    }
+
+    private static JsonParseResult braceError(String kind, char bracket, long position, String excerpt) {
+        int reported = (int) Math.min(position, Integer.MAX_VALUE);
+        return new JsonParseResult(kind + bracket + " at " + reported + " before " + excerpt, reported);
+    }
+
+    /**
+     * Reads the excerpt of the input that starts at {@code offset}.
+     */
+    private static String readExcerpt(Reader in, long offset) throws IOException {
+        for (long skipped; offset > 0; offset -= skipped) {
+            skipped = in.skip(offset);
+            if (skipped <= 0)
+                return "";
+        }
+        char[] text = new char[EXCERPT_LENGTH];
+        int length = 0;
+        for (int read; length < text.length && (read = in.read(text, length, text.length - length)) > 0; ) {
+            length += read;
+        }
+        return excerpt(new String(text, 0, length), 0, length);
+    }
+
+    /**
+     * Cuts the text quoted after "before" in an error message: at most {@link #EXCERPT_LENGTH}
+     * characters from {@code from}, without trailing whitespace.
+     *
+     * @param text the input
+     * @param from start of the excerpt
+     * @param to   end of the input
+     * @return the excerpt
+     */
+    static String excerpt(CharSequence text, int from, int to) {
+        to = Math.min(to, from + EXCERPT_LENGTH);
+        while (to > from && text.charAt(to - 1) <= ' ') to--;
+        return text.subSequence(from, to).toString();
+    }
+
+    /**
+     * Builds the value that starts with {@code token}, pulling further tokens for objects and arrays.
+     *
+     * @param reader reader positioned on {@code token}
+     * @param token  first token of the value
+     * @param keys    symbol table for member names
+     * @param filters key filters of the enclosing containers
+     * @return the parsed {@link JsonElement}
+     */
+    private static JsonElement readValue(JsonReader reader, JsonToken token, KeyTable keys, KeyFilter.Builder filters) throws IOException, JsonParseException {
+        switch (token) {
+            case BEGIN_OBJECT:
+                JsonObject obj = new JsonObject();
+                filters.begin();
+                while (reader.nextToken() != JsonToken.END_OBJECT) {
+                    String key = reader.getName(keys);
+                    filters.key(key);
+                    obj.add(key, readValue(reader, reader.nextToken(), keys, filters));
+                    filters.value();
+                }
+                obj.trimToSize();
+                filters.end(obj);
+                return obj;
+            case BEGIN_ARRAY:
+                JsonArray array = new JsonArray();
+                filters.begin();
+                while ((token = reader.nextToken()) != JsonToken.END_ARRAY) {
+                    array.add(readValue(reader, token, keys, filters));
+                    filters.value();
+                }
+                array.trimToSize();
+                filters.end(array);
+                return array;
+            case STRING:
+                return new JsonString(reader.getString());
+            case NUMBER:
+                return reader.getNumber();
+            case BOOLEAN:
+                return new JsonBoolean(reader.getBoolean());
+            case NULL:
+                return JsonNull.INSTANCE;
+            default:
+                throw reader.error("Unexpected " + token, reader.getPosition());
+        }
+    }
+
+    /**
+     * Parses the document this parser was created for.
+     *
+     * @return {@link JsonParseResult} containing a parse tree or error information
+     */
+    public JsonParseResult parse() {
+        index = begin;
+        structure = StructuralIndex.build(json, begin, end);
+        stringCursor = 0;
+        filters = new KeyFilter.Builder();
+
+        JsonParseResult braceCheckResult = checkBraces();
         if (!braceCheckResult.isSuccess())
             return braceCheckResult;
 
         JsonElement result;
         try {
-            result = parseValue(json);
-            index = skipWhitespace(json, index);
+            if (canParseInParallel()) {
+                result = parseArrayInParallel();
+                index = end;
+            } else {
+                result = parseValue();
+                index = skipWhitespace(index);
+            }
         } catch (JsonParseException ex) {
             return new JsonParseResult(ex.getMessage(), ex.getPosition());
         }
 
-        if (index != json.length()) {
-            return new JsonParseResult("Unexpected character at position " + index + " before " + json.substring(index), index);
+        if (index != end) {
+            return new JsonParseResult("Unexpected character at position " + position(index) + " before " + excerpt(json, index, end), position(index));
         }
-        return new JsonParseResult(result);
+        return new JsonParseResult(result, keys);
     }
 
     /**
      * Parses an object starting at the current {@code index}.
      *
-     * @param json the whole JSON string being parsed
      * @return a new {@link JsonObject}
      * @throws JsonParseException if an object member is malformed
      */
-    private static  JsonElement parseObject(String json) throws JsonParseException {
+    private JsonElement parseObject() throws JsonParseException {
         JsonObject obj = new JsonObject();
+        filters.begin();
         index++;
-        index = skipWhitespace(json, index);
-
-        while (index < json.length() && json.charAt(index) != '}') {
-            index = skipWhitespace(json, index);
-            Matcher keyMatcher = STRING_PATTERN.matcher(json.substring(index));
+        index = skipWhitespace(index);
 
+        while (index < end && json.charAt(index) != '}') {
+            index = skipWhitespace(index);
 
-            if (!keyMatcher.lookingAt()) {
-                throw new JsonParseException("Expected string key at position " + index, index);
+            int keyEnd = scanString(index);
+            if (keyEnd < 0) {
+                throw new JsonParseException("Expected string key at position " + position(index), position(index));
             }
-            String key = keyMatcher.group().substring(1, keyMatcher.group().length() - 1);
-            index += keyMatcher.end();
+            String key = keys.intern(json, index + 1, keyEnd - 1);
+            filters.key(key);
+            index = keyEnd;
 
-            index = skipWhitespace(json, index);
-            if (json.charAt(index) != ':') {
-                throw new JsonParseException("Expected ':' at position " + index, index);
+            index = skipWhitespace(index);
+            if (charAt(index) != ':') {
+                throw new JsonParseException("Expected ':' at position " + position(index), position(index));
             }
             index++;
 
-            index = skipWhitespace(json, index);
-            JsonElement value = parseValue(json);
+            index = skipWhitespace(index);
+            JsonElement value = parseValue();
             obj.add(key, value);
+            filters.value();
 
-            index = skipWhitespace(json, index);
-            if (json.charAt(index) == ',') {
+            index = skipWhitespace(index);
+            char c = charAt(index);
+            if (c == ',') {
                 index++;
-            } else if (json.charAt(index) != '}') {
-                throw new JsonParseException("Expected ',' or '}' at position " + index, index);
+            } else if (c != '}') {
+                throw new JsonParseException("Expected ',' or '}' at position " + position(index), position(index));
             }
         }
 
-        if (index >= json.length() || json.charAt(index) != '}') {
-            throw new JsonParseException("Expected '}' at position " + index, index);
+        if (index >= end || json.charAt(index) != '}') {
+            throw new JsonParseException("Expected '}' at position " + position(index), position(index));
         }
         index++;
+        obj.trimToSize();
+        filters.end(obj);
         return obj;
     }
 
     /**
      * Parses an array starting at the current {@code index}.
      *
-     * @param json the whole JSON string being parsed
      * @return a new {@link JsonArray}
      * @throws JsonParseException if the array structure is invalid
      */
-    private  static  JsonElement parseArray(String json) throws JsonParseException {
+    private JsonElement parseArray() throws JsonParseException {
         JsonArray array = new JsonArray();
+        filters.begin();
         index++;
-        index = skipWhitespace(json, index);
+        index = skipWhitespace(index);
 
-        while (index < json.length() && json.charAt(index) != ']') {
-            JsonElement value = parseValue(json);
+        while (index < end && json.charAt(index) != ']') {
+            JsonElement value = parseValue();
             array.add(value);
+            filters.value();
 
-            index = skipWhitespace(json, index);
+            index = skipWhitespace(index);
 
-            if (json.charAt(index) == ',') {
+            char c = charAt(index);
+            if (c == ',') {
                 index++;
-            } else if (json.charAt(index) != ']') {
-                throw new JsonParseException("Expected ',' or ']' at position " + index, index);
+            } else if (c != ']') {
+                throw new JsonParseException("Expected ',' or ']' at position " + position(index), position(index));
             }
         }
 
-        if (index >= json.length() || json.charAt(index) != ']') {
-            throw new JsonParseException("Expected ']' at position " + index, index);
+        if (index >= end || json.charAt(index) != ']') {
+            throw new JsonParseException("Expected ']' at position " + position(index), position(index));
         }
         index++;
+        array.trimToSize();
+        filters.end(array);
         return array;
     }
 
+    /**
+     * @return {@code true} if the document is a large array that ends the input and is worth splitting
+     */
+    private boolean canParseInParallel() {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        return parallelism > 1
+                && end - begin >= PARALLEL_THRESHOLD
+                && json.charAt(begin) == '['
+                && structure.getRootEnd() == end - 1
+                && structure.separatorCount() >= 2 * parallelism;
+    }
+
+    /**
+     * Parses the top-level array by splitting its elements at the separators found by the
+     * structural index and parsing the chunks concurrently on the common {@link ForkJoinPool}.
+     * Chunks are joined in document order, so the first error reported is the same one a
+     * sequential parse would hit, at the same position.
+     *
+     * @return a new {@link JsonArray} with all elements
+     * @throws JsonParseException if any element is malformed
+     */
+    private JsonElement parseArrayInParallel() throws JsonParseException {
+        int segments = structure.separatorCount() + 1;
+        int chunks = Math.min(segments, ForkJoinPool.getCommonPoolParallelism() * 4);
+        int perChunk = (segments + chunks - 1) / chunks;
+
+        List<ForkJoinTask<ChunkResult>> tasks = new ArrayList<>();
+        for (int first = 0; first < segments; first += perChunk) {
+            int last = Math.min(segments, first + perChunk);
+            int from = first == 0 ? begin + 1 : structure.separator(first - 1) + 1;
+            int to = last == segments ? end - 1 : structure.separator(last - 1);
+            boolean isFinal = last == segments;
+            tasks.add(ForkJoinPool.commonPool().submit(() -> new JsonParser(this).parseChunk(from, to, isFinal)));
+        }
+
+        List<JsonElement> elements = new ArrayList<>(segments);
+        filters.begin();
+        for (ForkJoinTask<ChunkResult> task : tasks) {
+            ChunkResult chunk = task.join();
+            if (chunk.error != null) {
+                tasks.forEach(t -> t.cancel(false));
+                throw chunk.error;
+            }
+            elements.addAll(chunk.elements);
+            keys.merge(chunk.keys);
+            filters.merge(chunk.filters);
+        }
+        JsonArray array = new JsonArray(elements);
+        filters.end(array);
+        return array;
+    }
+
+    /** Elements, member names and key filter contents of one chunk of a parallel parse, or the error that stopped it. */
+    private static class ChunkResult {
+        List<JsonElement> elements;
+        KeyTable keys;
+        KeyFilter.Builder filters;
+        JsonParseException error;
+    }
+
+    /**
+     * Runs {@link #parseElements} and captures its outcome for the joining thread.
+     */
+    private ChunkResult parseChunk(int from, int to, boolean isFinal) {
+        ChunkResult result = new ChunkResult();
+        try {
+            filters.begin();
+            result.elements = parseElements(from, to, isFinal);
+            result.keys = keys;
+            result.filters = filters;
+        } catch (JsonParseException ex) {
+            result.error = ex;
+        }
+        return result;
+    }
+
+    /**
+     * Parses the comma-separated array elements between {@code from} and {@code to}.
+     *
+     * @param from    first offset of the chunk
+     * @param to      offset of the separator or closing bracket that ends the chunk
+     * @param isFinal {@code true} for the last chunk, where a trailing comma is tolerated
+     * @return the parsed elements in order
+     * @throws JsonParseException if an element is malformed
+     */
+    private List<JsonElement> parseElements(int from, int to, boolean isFinal) throws JsonParseException {
+        List<JsonElement> elements = new ArrayList<>();
+        index = from;
+        stringCursor = structure.firstStringFrom(from);
+
+        while (true) {
+            index = skipWhitespace(index);
+            if (isFinal && index == to)
+                return elements;
+
+            elements.add(parseValue());
+            filters.value();
+
+            index = skipWhitespace(index);
+            if (index == to)
+                return elements;
+            if (charAt(index) != ',') {
+                throw new JsonParseException("Expected ',' or ']' at position " + position(index), position(index));
+            }
+            index++;
+        }
+    }
+
     /**
      * Dispatches to the appropriate value parser based on the next character.
      *
-     * @param json the whole JSON string being parsed
      * @return a parsed {@link JsonElement}
      * @throws JsonParseException if the value is ill‑formed or unsupported
      */
-    private static   JsonElement parseValue(String json) throws JsonParseException {
-        index = skipWhitespace(json, index);
-        if (index >= json.length()) {
-            throw new JsonParseException("Unexpected end of JSON", index);
+    private JsonElement parseValue() throws JsonParseException {
+        index = skipWhitespace(index);
+        if (index >= end) {
+            throw new JsonParseException("Unexpected end of JSON", position(index));
         }
 
         char c = json.charAt(index);
 
-        if (c == '"') return parseString(json);
-        if (c == '{') return parseObject(json);
-        if (c == '[') return parseArray(json);
+        if (c == '"') return parseString();
+        if (c == '{') return parseObject();
+        if (c == '[') return parseArray();
 
-        Matcher numMatcher = NUMBER_PATTERN.matcher(json.substring(index));
-        if (numMatcher.lookingAt()) {
-            String numStr = numMatcher.group();
-            index += numMatcher.end();
-            return new JsonNumber(numStr.contains(".") ? Double.parseDouble(numStr) : Integer.parseInt(numStr));
+        int numberEnd = scanNumber(json, index, end);
+        if (numberEnd > index) {
+            JsonNumber number = numberValue(json, index, numberEnd);
+            index = numberEnd;
+            return number;
         }
 
-        Matcher boolMatcher = BOOLEAN_PATTERN.matcher(json.substring(index));
-        if (boolMatcher.lookingAt()) {
-            String boolStr = boolMatcher.group();
-            index += boolMatcher.end();
-            return new JsonBoolean(Boolean.parseBoolean(boolStr));
+        if (json.startsWith("true", index) && index + 4 <= end) {
+            index += 4;
+            return new JsonBoolean(true);
         }
 
-        Matcher nullMatcher = NULL_PATTERN.matcher(json.substring(index));
-        if (nullMatcher.lookingAt()) {
-            index += nullMatcher.end();
+        if (json.startsWith("false", index) && index + 5 <= end) {
+            index += 5;
+            return new JsonBoolean(false);
+        }
+
+        if (json.startsWith("null", index) && index + 4 <= end) {
+            index += 4;
             return JsonNull.INSTANCE;
         }
 
-        throw new JsonParseException("Invalid value at position " + index, index);
+        throw new JsonParseException("Invalid value at position " + position(index), position(index));
     }
 
     /**
      * Parses a JSON string literal.
      *
-     * @param json the whole JSON string being parsed
      * @return a {@link JsonString} instance
      * @throws JsonParseException if the string is not properly delimited
      */
-    private static   JsonElement parseString(String json) throws JsonParseException {
-        Matcher matcher = STRING_PATTERN.matcher(json.substring(index));
-        if (!matcher.lookingAt()) {
-            throw new JsonParseException("Invalid string at position " + index, index);
+    private JsonElement parseString() throws JsonParseException {
+        int stringEnd = scanString(index);
+        if (stringEnd < 0) {
+            throw new JsonParseException("Invalid string at position " + position(index), position(index));
         }
-        String result = matcher.group().substring(1, matcher.group().length() - 1);
-        index += matcher.end();
-        return new JsonString(result.replace("\\\"", "\"").replace("\\\\", "\\"));
+        String result = json.substring(index + 1, stringEnd - 1);
+        index = stringEnd;
+        return new JsonString(decodeString(result));
     }
 
     /**
-     * Checks that all brackets and braces are balanced.
+     * Unescapes the contents of a string literal. Only {@code \"} and {@code \\} are decoded;
+     * every other escape sequence is kept as written so it survives serialization unchanged.
      *
-     * @param json the input to verify
-     * @return a successful {@link JsonParseResult} if balanced, otherwise an error
+     * @param raw text between the quotes
+     * @return the string value
      */
-    private static    JsonParseResult checkBraces(String json) {
-        Stack<Character> braces = new Stack<>();
-        int lastBraceIndex = 0;
+    static String decodeString(String raw) {
+        if (raw.indexOf('\\') < 0)
+            return raw;
+        return raw.replace("\\\"", "\"").replace("\\\\", "\\");
+    }
 
-        for (int i = 0; i < json.length(); i++) {
-            char c = json.charAt(i);
-            String errorMessage = "Mismatched brace of type " + c + " at " + i + " before " + json.substring(i, Math.min(json.length(), i + 30));
+    /**
+     * Converts the source text of a number into a {@link JsonNumber}.
+     *
+     * @param numStr text matching the number grammar
+     * @return the number element
+     */
+    static JsonNumber numberValue(String numStr) {
+        return numberValue(numStr, 0, numStr.length());
+    }
 
-            if (c == '}') {
-                if (!braces.isEmpty() && braces.peek() == '{') {
-                    braces.pop();
-                } else {
-                    return new JsonParseResult(errorMessage, i);
-                }
+    /**
+     * Converts a number in place, without copying its text in the common cases.
+     * <p>
+     * The digits are accumulated into a {@code long} while they are read. Whole numbers of up to
+     * 18 digits are then complete, and decimals of up to 15 significant digits whose power of ten
+     * is at most 22 are converted to a {@code double} with one exact multiplication or division.
+     * Everything else goes through {@link #slowNumberValue(String, int)}.
+     *
+     * @param text text containing a number that matches the number grammar
+     * @param from offset of its first character
+     * @param to   offset just past its last character
+     * @return the number element
+     */
+    static JsonNumber numberValue(CharSequence text, int from, int to) {
+        int i = from;
+        boolean negative = text.charAt(i) == '-';
+        if (negative) i++;
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean integral = true;
+        for (; i < to; i++) {
+            char c = text.charAt(i);
+            if (c == '.') {
+                integral = false;
+                continue;
             }
+            if (c < '0' || c > '9')
+                break;
+            if (!integral)
+                scale--;
+            if (digits == 0 && c == '0')
+                continue;
+            if (++digits <= MAX_LONG_DIGITS)
+                mantissa = mantissa * 10 + (c - '0');
+        }
 
-            if (c == ']') {
-                if (!braces.isEmpty() && braces.peek() == '[') {
-                    braces.pop();
-                } else {
-                    return new JsonParseResult(errorMessage, i);
-                }
+        if (digits > MAX_LONG_DIGITS)
+            return slowNumberValue(text.subSequence(from, to).toString(), digits);
+
+        if (i < to) {
+            integral = false;
+            i++;
+            boolean negativeExponent = text.charAt(i) == '-';
+            if (negativeExponent || text.charAt(i) == '+') i++;
+            if (to - i > 4)
+                return slowNumberValue(text.subSequence(from, to).toString(), digits);
+            int exponent = 0;
+            for (; i < to; i++) {
+                exponent = exponent * 10 + (text.charAt(i) - '0');
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+
+        if (integral)
+            return new JsonNumber(negative ? -mantissa : mantissa);
+
+        if (digits <= MAX_EXACT_DOUBLE_DIGITS && scale >= -MAX_EXACT_POWER && scale <= MAX_EXACT_POWER) {
+            double value = scale < 0 ? mantissa / POWERS_OF_TEN[-scale] : mantissa * POWERS_OF_TEN[scale];
+            return new JsonNumber(negative ? -value : value);
+        }
+        return slowNumberValue(text.subSequence(from, to).toString(), digits);
+    }
+
+    /**
+     * Converts a number that the fast path cannot handle exactly. Whole numbers become a {@code long}
+     * if they fit; other numbers become a {@code double} if it represents the written value, which is
+     * always the case for 15 significant digits or fewer. Anything else is kept as text.
+     *
+     * @param numStr text of the number
+     * @param digits number of significant digits in it
+     * @return the number element
+     */
+    private static JsonNumber slowNumberValue(String numStr, int digits) {
+        boolean integral = numStr.indexOf('.') < 0 && numStr.indexOf('e') < 0 && numStr.indexOf('E') < 0;
+        if (integral) {
+            try {
+                return new JsonNumber(Long.parseLong(numStr));
+            } catch (NumberFormatException ex) {
+                return JsonNumber.ofText(numStr);
             }
+        }
+
+        double value = Double.parseDouble(numStr);
+        if (Double.isInfinite(value) || (value == 0 && digits > 0))
+            return JsonNumber.ofText(numStr);
+        if (digits <= MAX_EXACT_DOUBLE_DIGITS)
+            return new JsonNumber(value);
+
+        String shortest = Double.toString(value);
+        if (shortest.equals(numStr) || new BigDecimal(numStr).compareTo(new BigDecimal(shortest)) == 0)
+            return new JsonNumber(value);
+        return JsonNumber.ofText(numStr);
+    }
 
-            if (c == '{' || c == '[') {
-                braces.push(c);
-                lastBraceIndex = i;
+    /**
+     * Scans a quoted string literal without copying it.
+     * <p>
+     * A string whose end the structural index has already found is skipped in one step. Otherwise
+     * the literal is read character by character, and a backslash consumes the character that
+     * follows it. If the literal is never closed, the last escaped quote is taken as the closing
+     * one, which is what a backtracking string pattern would accept.
+     *
+     * @param i position of the opening quote
+     * @return position just past the closing quote, or -1 if there is no string literal at {@code i}
+     */
+    private int scanString(int i) {
+        if (i >= end || json.charAt(i) != '"')
+            return -1;
+
+        while (stringCursor < structure.stringCount() && structure.stringStart(stringCursor) < i) stringCursor++;
+        if (stringCursor < structure.stringCount() && structure.stringStart(stringCursor) == i && structure.stringEnd(stringCursor) > 0)
+            return structure.stringEnd(stringCursor++);
+
+        int lastEscapedQuote = -1;
+        i++;
+        while (i < end) {
+            char c = json.charAt(i);
+            if (c == '"')
+                return i + 1;
+            if (c == '\\' && i + 1 < end) {
+                if (json.charAt(i + 1) == '"')
+                    lastEscapedQuote = i + 1;
+                i += 2;
+            } else {
+                i++;
             }
         }
+        return lastEscapedQuote < 0 ? -1 : lastEscapedQuote + 1;
+    }
 
-        if (braces.isEmpty()) {
-            return new JsonParseResult(new JsonBoolean(true));
-        } else {
-            return new JsonParseResult("Unclosed brace " + braces.peek() + " at " + lastBraceIndex + " before " + json.substring(lastBraceIndex, Math.min(json.length(), lastBraceIndex + 30)), lastBraceIndex);
+    /**
+     * Scans a number of the form {@code -?\d+(\.\d+)?([eE][+-]?\d+)?}.
+     *
+     * @param text text containing the number
+     * @param i    position where the number would start
+     * @param end  offset just past the last character that may belong to the number
+     * @return position just past the number, or {@code i} if there is no number at {@code i}
+     */
+    static int scanNumber(CharSequence text, int i, int end) {
+        int start = i;
+        if (i < end && text.charAt(i) == '-') i++;
+
+        int digits = skipDigits(text, i, end);
+        if (digits == i)
+            return start;
+        i = digits;
+
+        if (i < end && text.charAt(i) == '.') {
+            int fraction = skipDigits(text, i + 1, end);
+            if (fraction > i + 1)
+                i = fraction;
         }
+
+        if (i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            int j = i + 1;
+            if (j < end && (text.charAt(j) == '+' || text.charAt(j) == '-')) j++;
+            int exponent = skipDigits(text, j, end);
+            if (exponent > j)
+                i = exponent;
+        }
+        return i;
+    }
+
+    private static int skipDigits(CharSequence text, int i, int end) {
+        while (i < end && text.charAt(i) >= '0' && text.charAt(i) <= '9') i++;
+        return i;
+    }
+
+    /**
+     * Checks that all brackets and braces are balanced, using the structural index.
+     *
+     * @return a successful {@link JsonParseResult} if balanced, otherwise an error
+     */
+    private JsonParseResult checkBraces() {
+        if (structure.isBalanced())
+            return new JsonParseResult(new JsonBoolean(true));
+
+        int i = structure.getErrorPosition();
+        String kind = structure.isUnclosed() ? "Unclosed brace " : "Mismatched brace of type ";
+        return new JsonParseResult(kind + json.charAt(i) + " at " + position(i) + " before " + excerpt(json, i, end), position(i));
     }
 
     /**
      * Moves the cursor past consecutive whitespace.
      *
-     * @param json the input string
-     * @param i    starting position
+     * @param i starting position
      * @return first index that is not whitespace
      */
-    private static  int skipWhitespace(String json, int i) {
-        while (i < json.length() && Character.isWhitespace(json.charAt(i))) {
+    private int skipWhitespace(int i) {
+        while (i < end && Character.isWhitespace(json.charAt(i))) {
             i++;
         }
         return i;
     }
+
+    /**
+     * @return the character at {@code i}, or {@code '\0'} past the end of the input
+     */
+    private char charAt(int i) {
+        return i < end ? json.charAt(i) : '\0';
+    }
+
+    /**
+     * Converts an absolute offset into the position reported to callers
+     * (relative to the first non-whitespace character).
+     */
+    private int position(int i) {
+        return i - begin;
+    }
 }
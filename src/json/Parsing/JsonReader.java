@@ -0,0 +1,599 @@
+package src.json.Parsing;
+
+import src.exception.JsonParseException;
+import src.json.types.JsonNumber;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pull parser that reads a JSON document token by token from a {@link Reader}.
+ * <p>
+ * Only a fixed-size character buffer, the text of the current token and one entry per open
+ * container are kept in memory, so arbitrarily large inputs can be processed in constant space.
+ * The reader accepts the same grammar as {@link JsonParser}; string values are unescaped with the
+ * same rules and member names are returned as they appear in the source.
+ * Token positions are character offsets from the start of the input. Errors are reported like
+ * {@link JsonParser#parseJson(String)} reports them: with the same messages, at positions counted
+ * from the first character that is not whitespace.
+ */
+public class JsonReader implements Closeable {
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT = 2;
+    private static final int DANGLING_NAME = 3;
+    private static final int NONEMPTY_OBJECT = 4;
+    private static final int EMPTY_ARRAY = 5;
+    private static final int NONEMPTY_ARRAY = 6;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    /** Next unread character in {@code buffer}. */
+    private int pos;
+    /** Number of valid characters in {@code buffer}. */
+    private int limit;
+    /** Input offset of {@code buffer[0]}. */
+    private long bufferOffset;
+
+    /** Parser state of every open container, innermost last. */
+    private int[] stack = new int[32];
+    private int stackSize;
+
+    /** Most recently returned token. */
+    private JsonToken token;
+    /** Raw text of the current name, string, number or literal. */
+    private final StringBuilder text = new StringBuilder();
+    /** Input offset where the current token starts. */
+    private long tokenPosition;
+    /** Input offset of the first character that is not whitespace; error positions are relative to it. */
+    private long origin;
+    /** Input that is read again before the rest of {@code in}, see {@link #readString()}. */
+    private String pending;
+    private int pendingPosition;
+    /** When set, string contents are scanned but not copied into {@code text}. */
+    private boolean skipping;
+
+    /**
+     * Creates a reader over a character stream.
+     *
+     * @param in source of JSON text; buffering is done by the reader itself
+     */
+    public JsonReader(Reader in) {
+        this.in = in;
+        stack[stackSize++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Creates a reader over UTF-8 encoded bytes.
+     *
+     * @param in source of JSON bytes
+     */
+    public JsonReader(InputStream in) {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Advances to the next token.
+     *
+     * @return the token that was read; {@link JsonToken#END_DOCUMENT} once the top-level value is complete
+     * @throws IOException        if the underlying reader fails
+     * @throws JsonParseException if the input is not valid JSON
+     */
+    public JsonToken nextToken() throws IOException, JsonParseException {
+        int c;
+        switch (stack[stackSize - 1]) {
+            case EMPTY_DOCUMENT:
+                stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+                c = nextNonWhitespace();
+                origin = c == -1 ? position() : position() - 1;
+                if (c == -1)
+                    throw endOfInput();
+                return token = readValue(c);
+
+            case NONEMPTY_DOCUMENT:
+                c = nextNonWhitespace();
+                if (c == -1)
+                    return token = JsonToken.END_DOCUMENT;
+                throw error("Unexpected character", position() - 1, " before " + excerpt(c));
+
+            case EMPTY_ARRAY:
+                stack[stackSize - 1] = NONEMPTY_ARRAY;
+                c = nextNonWhitespace();
+                if (c == ']')
+                    return token = endContainer(JsonToken.END_ARRAY);
+                return token = readValue(c);
+
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']')
+                    return token = endContainer(JsonToken.END_ARRAY);
+                if (c != ',')
+                    throw error("Expected ',' or ']'", position() - 1);
+                if (peekChar(0) == ']') {
+                    pos++;
+                    return token = endContainer(JsonToken.END_ARRAY);
+                }
+                return token = readValue(nextNonWhitespace());
+
+            case EMPTY_OBJECT:
+                c = nextNonWhitespace();
+                if (c == '}')
+                    return token = endContainer(JsonToken.END_OBJECT);
+                return token = readName(c);
+
+            case NONEMPTY_OBJECT:
+                c = nextNonWhitespace();
+                if (c == '}')
+                    return token = endContainer(JsonToken.END_OBJECT);
+                if (c != ',')
+                    throw error("Expected ',' or '}'", position() - 1);
+                if (peekChar(0) == '}') {
+                    pos++;
+                    return token = endContainer(JsonToken.END_OBJECT);
+                }
+                return token = readName(nextNonWhitespace());
+
+            case DANGLING_NAME:
+                c = nextNonWhitespace();
+                if (c != ':')
+                    throw error("Expected ':'", position() - 1);
+                stack[stackSize - 1] = NONEMPTY_OBJECT;
+                c = nextNonWhitespace();
+                if (c == -1)
+                    throw endOfInput();
+                return token = readValue(c);
+
+            default:
+                throw new IllegalStateException("Corrupt reader state");
+        }
+    }
+
+    /**
+     * Reads the next token, which must be a member name.
+     *
+     * @return the member name
+     * @throws IOException        if the underlying reader fails
+     * @throws JsonParseException if the next token is not a name or the input is invalid
+     */
+    public String nextName() throws IOException, JsonParseException {
+        if (nextToken() != JsonToken.NAME)
+            throw error("Expected a name but was " + token, tokenPosition);
+        return text.toString();
+    }
+
+    /**
+     * Skips the next value, including all nested members if it is an object or array.
+     * Strings inside the skipped value are scanned without being copied.
+     *
+     * @throws IOException        if the underlying reader fails
+     * @throws JsonParseException if the input is invalid
+     */
+    public void skipValue() throws IOException, JsonParseException {
+        boolean wasSkipping = skipping;
+        skipping = true;
+        try {
+            int depth = 0;
+            do {
+                switch (nextToken()) {
+                    case BEGIN_OBJECT:
+                    case BEGIN_ARRAY:
+                        depth++;
+                        break;
+                    case END_OBJECT:
+                    case END_ARRAY:
+                        depth--;
+                        break;
+                    case END_DOCUMENT:
+                        return;
+                    default:
+                        break;
+                }
+            } while (depth > 0);
+        } finally {
+            skipping = wasSkipping;
+            text.setLength(0);
+        }
+    }
+
+    /**
+     * @return the most recently read token, or {@code null} before the first call to {@link #nextToken()}
+     */
+    public JsonToken getToken() {
+        return token;
+    }
+
+    /**
+     * @return the current string value or member name
+     * @throws IllegalStateException if the current token is neither a string nor a name
+     */
+    public String getString() {
+        if (token == JsonToken.STRING)
+            return JsonParser.decodeString(text.toString());
+        if (token == JsonToken.NAME)
+            return text.toString();
+        throw new IllegalStateException("Current token is " + token + ", not a string");
+    }
+
+    /**
+     * Returns the current member name from a symbol table, allocating only names not seen before.
+     *
+     * @param keys symbol table to look the name up in
+     * @return the canonical string for the name
+     * @throws IllegalStateException if the current token is not a name
+     */
+    String getName(KeyTable keys) {
+        expect(JsonToken.NAME);
+        return keys.intern(text, 0, text.length());
+    }
+
+    /**
+     * @return the source text of the current number
+     * @throws IllegalStateException if the current token is not a number
+     */
+    public String getNumberText() {
+        expect(JsonToken.NUMBER);
+        return text.toString();
+    }
+
+    /**
+     * Converts the current number without copying its text.
+     *
+     * @return the current number as a {@link JsonNumber}
+     * @throws IllegalStateException if the current token is not a number
+     */
+    public JsonNumber getNumber() {
+        expect(JsonToken.NUMBER);
+        return JsonParser.numberValue(text, 0, text.length());
+    }
+
+    /**
+     * @return the current number as a {@code double}
+     * @throws IllegalStateException if the current token is not a number
+     */
+    public double getDouble() {
+        return Double.parseDouble(getNumberText());
+    }
+
+    /**
+     * @return the current number as a {@code long}
+     * @throws IllegalStateException if the current token is not a number
+     * @throws NumberFormatException if the number has a fraction, an exponent or does not fit
+     */
+    public long getLong() {
+        return Long.parseLong(getNumberText());
+    }
+
+    /**
+     * @return the current boolean value
+     * @throws IllegalStateException if the current token is not a boolean
+     */
+    public boolean getBoolean() {
+        expect(JsonToken.BOOLEAN);
+        return text.charAt(0) == 't';
+    }
+
+    /**
+     * @return input offset where the current token starts
+     */
+    public long getPosition() {
+        return tokenPosition;
+    }
+
+    /**
+     * @return input offset just past the current token
+     */
+    public long getEndPosition() {
+        return position();
+    }
+
+    /**
+     * Controls whether string contents are copied while reading. Callers that only need token
+     * positions can turn copying off; {@link #getString()} is then meaningless.
+     *
+     * @param retain {@code false} to scan strings without copying them
+     */
+    void setRetainText(boolean retain) {
+        skipping = !retain;
+    }
+
+    /**
+     * @return number of containers currently open
+     */
+    public int getDepth() {
+        return stackSize - 1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void expect(JsonToken expected) {
+        if (token != expected)
+            throw new IllegalStateException("Current token is " + token + ", not " + expected);
+    }
+
+    private JsonToken readValue(int c) throws IOException, JsonParseException {
+        if (c == -1)
+            throw endOfInput();
+        tokenPosition = position() - 1;
+        text.setLength(0);
+
+        switch (c) {
+            case '{':
+                push(EMPTY_OBJECT);
+                return JsonToken.BEGIN_OBJECT;
+            case '[':
+                push(EMPTY_ARRAY);
+                return JsonToken.BEGIN_ARRAY;
+            case '"':
+                readString();
+                return JsonToken.STRING;
+            case 't':
+                readLiteral("true");
+                return JsonToken.BOOLEAN;
+            case 'f':
+                readLiteral("false");
+                return JsonToken.BOOLEAN;
+            case 'n':
+                readLiteral("null");
+                return JsonToken.NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    readNumber(c);
+                    return JsonToken.NUMBER;
+                }
+                throw error("Invalid value", tokenPosition);
+        }
+    }
+
+    private JsonToken readName(int c) throws IOException, JsonParseException {
+        tokenPosition = c == -1 ? position() : position() - 1;
+        text.setLength(0);
+        if (c != '"')
+            throw error("Expected string key", tokenPosition);
+        readString();
+        stack[stackSize - 1] = DANGLING_NAME;
+        return JsonToken.NAME;
+    }
+
+    /**
+     * Reads the rest of a string literal whose opening quote was consumed, keeping escapes as written.
+     * <p>
+     * Like {@link JsonParser}, a literal that is never closed ends at its last escaped quote, and
+     * the input after that quote is read again as the rest of the document.
+     */
+    private void readString() throws IOException, JsonParseException {
+        /* Input offset just past the last escaped quote, the length of text before that quote,
+           and the string after it when text is not kept. */
+        long escapedQuote = -1;
+        int escapedQuoteText = 0;
+        StringBuilder tail = null;
+        while (true) {
+            if (pos == limit && !fill(1)) {
+                resumeAfter(escapedQuote, escapedQuoteText, tail);
+                return;
+            }
+
+            int start = pos;
+            while (pos < limit) {
+                char c = buffer[pos];
+                if (c == '"') {
+                    keep(start, pos, tail);
+                    pos++;
+                    return;
+                }
+                if (c == '\\') {
+                    if (pos + 1 == limit) {
+                        keep(start, pos, tail);
+                        if (!fill(2)) {
+                            keep(pos, limit, tail);
+                            resumeAfter(escapedQuote, escapedQuoteText, tail);
+                            return;
+                        }
+                        start = pos;
+                    }
+                    if (buffer[pos + 1] == '"') {
+                        keep(start, pos + 2, tail);
+                        escapedQuote = position() + 2;
+                        escapedQuoteText = text.length() - 1;
+                        tail = skipping ? new StringBuilder() : null;
+                        start = pos + 2;
+                    }
+                    pos += 2;
+                } else {
+                    pos++;
+                }
+            }
+            keep(start, pos, tail);
+        }
+    }
+
+    /**
+     * Adds part of the buffer to the current string, or to the input after its last escaped quote
+     * when the string itself is not kept.
+     */
+    private void keep(int from, int to, StringBuilder tail) {
+        if (!skipping)
+            text.append(buffer, from, to - from);
+        else if (tail != null)
+            tail.append(buffer, from, to - from);
+    }
+
+    /**
+     * Ends a string literal that reached the end of the input at its last escaped quote, and goes
+     * back to the input after that quote.
+     */
+    private void resumeAfter(long escapedQuote, int escapedQuoteText, StringBuilder tail) throws JsonParseException {
+        if (escapedQuote < 0)
+            throw error("Invalid string", tokenPosition);
+        if (skipping) {
+            pending = tail.toString();
+        } else {
+            pending = text.substring(escapedQuoteText + 1);
+            text.setLength(escapedQuoteText);
+        }
+        pendingPosition = 0;
+        bufferOffset = escapedQuote;
+        pos = 0;
+        limit = 0;
+    }
+
+    /**
+     * Reads a number of the form {@code -?\d+(\.\d+)?([eE][+-]?\d+)?} whose first character was consumed.
+     */
+    private void readNumber(int first) throws IOException, JsonParseException {
+        text.append((char) first);
+        if (first == '-') {
+            if (!isDigit(peekChar(0)))
+                throw error("Invalid value", tokenPosition);
+        }
+        readDigits();
+
+        if (peekChar(0) == '.' && isDigit(peekChar(1))) {
+            text.append(buffer[pos++]);
+            readDigits();
+        }
+
+        int e = peekChar(0);
+        if (e == 'e' || e == 'E') {
+            int sign = peekChar(1);
+            boolean signed = sign == '+' || sign == '-';
+            if (isDigit(peekChar(signed ? 2 : 1))) {
+                text.append(buffer[pos++]);
+                if (signed) text.append(buffer[pos++]);
+                readDigits();
+            }
+        }
+    }
+
+    private void readDigits() throws IOException {
+        while (isDigit(peekChar(0))) {
+            text.append(buffer[pos++]);
+        }
+    }
+
+    private void readLiteral(String literal) throws IOException, JsonParseException {
+        for (int i = 1; i < literal.length(); i++) {
+            if (peekChar(i - 1) != literal.charAt(i))
+                throw error("Invalid value", tokenPosition);
+        }
+        text.append(literal);
+        pos += literal.length() - 1;
+    }
+
+    private JsonToken endContainer(JsonToken closing) {
+        tokenPosition = position() - 1;
+        stackSize--;
+        return closing;
+    }
+
+    private void push(int state) {
+        if (stackSize == stack.length) {
+            int[] grown = new int[stackSize * 2];
+            System.arraycopy(stack, 0, grown, 0, stackSize);
+            stack = grown;
+        }
+        stack[stackSize++] = state;
+    }
+
+    /**
+     * Consumes whitespace and returns the next character, or -1 at end of input.
+     */
+    private int nextNonWhitespace() throws IOException {
+        while (pos < limit || fill(1)) {
+            char c = buffer[pos++];
+            if (!Character.isWhitespace(c))
+                return c;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the character {@code ahead} positions past the cursor without consuming it, or -1 at end of input
+     */
+    private int peekChar(int ahead) throws IOException {
+        if (pos + ahead >= limit && !fill(ahead + 1))
+            return -1;
+        return buffer[pos + ahead];
+    }
+
+    /**
+     * Makes sure at least {@code minimum} unread characters are buffered.
+     *
+     * @return {@code false} if the input ends first
+     */
+    private boolean fill(int minimum) throws IOException {
+        if (pos > 0) {
+            bufferOffset += pos;
+            limit -= pos;
+            System.arraycopy(buffer, pos, buffer, 0, limit);
+            pos = 0;
+        }
+        while (limit < minimum) {
+            int read = pending != null ? readPending() : in.read(buffer, limit, buffer.length - limit);
+            if (read == -1)
+                return false;
+            limit += read;
+        }
+        return true;
+    }
+
+    /**
+     * Moves input that is read again from {@link #pending} to the buffer.
+     *
+     * @return the number of characters moved, or -1 once all of them have been
+     */
+    private int readPending() {
+        int count = Math.min(pending.length() - pendingPosition, buffer.length - limit);
+        if (count == 0) {
+            pending = null;
+            return -1;
+        }
+        pending.getChars(pendingPosition, pendingPosition + count, buffer, limit);
+        pendingPosition += count;
+        return count;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private long position() {
+        return bufferOffset + pos;
+    }
+
+    /**
+     * Creates the error for {@code what} at an input offset, e.g. "Invalid value at position 4".
+     *
+     * @param what     description of the error
+     * @param position input offset of the error
+     * @return the exception to throw
+     */
+    JsonParseException error(String what, long position) {
+        return error(what, position, "");
+    }
+
+    private JsonParseException error(String what, long position, String context) {
+        int reported = (int) Math.min(position - origin, Integer.MAX_VALUE);
+        return new JsonParseException(what + " at position " + reported + context, reported);
+    }
+
+    private JsonParseException endOfInput() {
+        return new JsonParseException("Unexpected end of JSON", (int) Math.min(position() - origin, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Reads the excerpt of the input that an error message quotes, starting with {@code first},
+     * which was just consumed; see {@link JsonParser#excerpt}.
+     */
+    private String excerpt(int first) throws IOException {
+        StringBuilder excerpt = new StringBuilder().append((char) first);
+        for (int c; excerpt.length() < JsonParser.EXCERPT_LENGTH && (c = peekChar(excerpt.length() - 1)) != -1; ) {
+            excerpt.append((char) c);
+        }
+        return JsonParser.excerpt(excerpt, 0, excerpt.length());
+    }
+}
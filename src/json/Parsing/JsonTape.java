@@ -0,0 +1,211 @@
+package src.json.Parsing;
+
+import src.exception.JsonParseException;
+import src.json.types.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * Compact structural index of a JSON document.
+ * <p>
+ * Instead of a node graph, the tape stores one entry per token in three parallel arrays:
+ * the token kind, its start offset in the source text and its extent. For scalars and keys the
+ * extent is the end offset in the text; for objects and arrays it is the tape index just past
+ * the container, so a whole subtree can be skipped in one step.
+ * {@link LazyJsonObject} and {@link LazyJsonArray} views read from the tape and only build
+ * regular elements for the parts that are actually accessed.
+ */
+public class JsonTape {
+    public static final byte OBJECT = 1;
+    public static final byte ARRAY = 2;
+    public static final byte KEY = 3;
+    public static final byte STRING = 4;
+    public static final byte NUMBER = 5;
+    public static final byte TRUE = 6;
+    public static final byte FALSE = 7;
+    public static final byte NULL = 8;
+
+    private final String json;
+    /** Canonical strings for the keys built from the tape. */
+    private final KeyTable keys = new KeyTable();
+    private byte[] kinds = new byte[64];
+    private int[] starts = new int[64];
+    private int[] extents = new int[64];
+    private int size;
+
+    private JsonTape(String json) {
+        this.json = json;
+    }
+
+    /**
+     * Validates {@code json} and records its structure on a tape.
+     *
+     * @param json the raw JSON text; it is retained by the returned views
+     * @return a result whose root is a lazy view for objects and arrays, or a regular element for a scalar document
+     */
+    public static JsonParseResult parse(String json) {
+        JsonTape tape = new JsonTape(json);
+        JsonReader reader = new JsonReader(new StringReader(json));
+        reader.setRetainText(false);
+
+        int[] open = new int[32];
+        int depth = 0;
+        try {
+            JsonToken token;
+            while ((token = reader.nextToken()) != JsonToken.END_DOCUMENT) {
+                int start = (int) reader.getPosition();
+                int end = (int) reader.getEndPosition();
+                switch (token) {
+                    case BEGIN_OBJECT:
+                    case BEGIN_ARRAY:
+                        if (depth == open.length) {
+                            int[] grown = new int[depth * 2];
+                            System.arraycopy(open, 0, grown, 0, depth);
+                            open = grown;
+                        }
+                        open[depth++] = tape.size;
+                        tape.append(token == JsonToken.BEGIN_OBJECT ? OBJECT : ARRAY, start, 0);
+                        break;
+                    case END_OBJECT:
+                    case END_ARRAY:
+                        tape.extents[open[--depth]] = tape.size;
+                        break;
+                    case NAME:
+                        tape.append(KEY, start, end);
+                        break;
+                    case STRING:
+                        tape.append(STRING, start, end);
+                        break;
+                    case NUMBER:
+                        tape.append(NUMBER, start, end);
+                        break;
+                    case BOOLEAN:
+                        tape.append(json.charAt(start) == 't' ? TRUE : FALSE, start, end);
+                        break;
+                    case NULL:
+                        tape.append(NULL, start, end);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } catch (JsonParseException ex) {
+            return new JsonParseResult(ex.getMessage(), ex.getPosition());
+        } catch (IOException ex) {
+            return new JsonParseResult("Error reading input: " + ex.getMessage(), -1);
+        }
+        return new JsonParseResult(tape.element(0), tape.keys);
+    }
+
+    private void append(byte kind, int start, int extent) {
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            byte[] k = new byte[capacity];
+            int[] s = new int[capacity];
+            int[] e = new int[capacity];
+            System.arraycopy(kinds, 0, k, 0, size);
+            System.arraycopy(starts, 0, s, 0, size);
+            System.arraycopy(extents, 0, e, 0, size);
+            kinds = k;
+            starts = s;
+            extents = e;
+        }
+        kinds[size] = kind;
+        starts[size] = start;
+        extents[size] = extent;
+        size++;
+    }
+
+    /**
+     * @param i tape index
+     * @return the kind of token at {@code i}
+     */
+    public byte kind(int i) {
+        return kinds[i];
+    }
+
+    /**
+     * @param i tape index of a key or value
+     * @return tape index of the token that follows it, skipping the whole subtree of a container
+     */
+    public int next(int i) {
+        return kinds[i] == OBJECT || kinds[i] == ARRAY ? extents[i] : i + 1;
+    }
+
+    /**
+     * Compares a key token with {@code key} without allocating.
+     *
+     * @param i   tape index of a key
+     * @param key name to compare with
+     * @return {@code true} if the key is exactly {@code key}
+     */
+    public boolean keyEquals(int i, String key) {
+        int length = extents[i] - starts[i] - 2;
+        return length == key.length() && json.regionMatches(starts[i] + 1, key, 0, length);
+    }
+
+    /**
+     * @param i tape index of a key
+     * @return the key as written in the source, shared with other keys of the same name
+     */
+    public String key(int i) {
+        return keys.intern(json, starts[i] + 1, extents[i] - 1);
+    }
+
+    /**
+     * Returns the value at {@code i}: a lazy view for objects and arrays, a regular element for scalars.
+     *
+     * @param i tape index of a value
+     * @return element for the value
+     */
+    public JsonElement element(int i) {
+        switch (kinds[i]) {
+            case OBJECT:
+                return new LazyJsonObject(this, i);
+            case ARRAY:
+                return new LazyJsonArray(this, i);
+            default:
+                return materialize(i);
+        }
+    }
+
+    /**
+     * Builds a regular mutable element for the value at {@code i}, including its whole subtree.
+     *
+     * @param i tape index of a value
+     * @return the materialized element
+     */
+    public JsonElement materialize(int i) {
+        switch (kinds[i]) {
+            case OBJECT: {
+                JsonObject obj = new JsonObject();
+                for (int k = i + 1; k < extents[i]; k = next(k + 1)) {
+                    obj.add(key(k), materialize(k + 1));
+                }
+                obj.trimToSize();
+                return obj;
+            }
+            case ARRAY: {
+                JsonArray array = new JsonArray();
+                for (int k = i + 1; k < extents[i]; k = next(k)) {
+                    array.add(materialize(k));
+                }
+                array.trimToSize();
+                return array;
+            }
+            case STRING:
+                return new JsonString(JsonParser.decodeString(json.substring(starts[i] + 1, extents[i] - 1)));
+            case NUMBER:
+                return JsonParser.numberValue(json, starts[i], extents[i]);
+            case TRUE:
+                return new JsonBoolean(true);
+            case FALSE:
+                return new JsonBoolean(false);
+            case NULL:
+                return JsonNull.INSTANCE;
+            default:
+                throw new IllegalStateException("No value at tape index " + i);
+        }
+    }
+}
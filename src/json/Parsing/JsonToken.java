@@ -0,0 +1,27 @@
+package src.json.Parsing;
+
+/**
+ * Kinds of tokens produced by {@link JsonReader}.
+ */
+public enum JsonToken {
+    /** Opening brace of an object. */
+    BEGIN_OBJECT,
+    /** Closing brace of an object. */
+    END_OBJECT,
+    /** Opening bracket of an array. */
+    BEGIN_ARRAY,
+    /** Closing bracket of an array. */
+    END_ARRAY,
+    /** Member name inside an object. */
+    NAME,
+    /** String value. */
+    STRING,
+    /** Number value. */
+    NUMBER,
+    /** {@code true} or {@code false}. */
+    BOOLEAN,
+    /** The literal {@code null}. */
+    NULL,
+    /** No more input after the top-level value. */
+    END_DOCUMENT
+}
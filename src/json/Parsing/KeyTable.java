@@ -0,0 +1,154 @@
+package src.json.Parsing;
+
+/**
+ * Symbol table that makes equal member names share one {@code String}.
+ * <p>
+ * In documents made of many similar records every object repeats the same few keys. The parser
+ * looks each key up by hashing it straight from the source text, and only allocates a string the
+ * first time a name is seen. Lookups and hits are counted so the effectiveness of interning can be
+ * reported.
+ * <p>
+ * The table stops accepting new names once it holds {@link #MAX_ENTRIES}, so documents that use
+ * unbounded sets of keys, such as maps keyed by id, do not grow it without limit. Instances are not
+ * thread-safe; parallel parses use one table per task and {@link #merge(KeyTable)} them.
+ */
+public class KeyTable {
+    /** Upper bound on the number of distinct names kept. */
+    public static final int MAX_ENTRIES = 1 << 16;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int size;
+
+    private long lookups;
+    private long hits;
+
+    /**
+     * Returns the canonical string for the characters {@code text[from, to)}.
+     *
+     * @param text text containing the name
+     * @param from offset of its first character
+     * @param to   offset just past its last character
+     * @return a string equal to the name, shared with earlier lookups of the same name
+     */
+    public String intern(CharSequence text, int from, int to) {
+        lookups++;
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+
+        int mask = names.length - 1;
+        int slot = spread(hash) & mask;
+        for (String name = names[slot]; name != null; name = names[slot]) {
+            if (hashes[slot] == hash && matches(name, text, from, to)) {
+                hits++;
+                return name;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        String name = text.subSequence(from, to).toString();
+        if (size < MAX_ENTRIES)
+            insert(slot, name, hash);
+        return name;
+    }
+
+    /**
+     * Adds the names and counters of a table filled by another task of the same parse.
+     *
+     * @param other table to absorb; it should not be used afterwards
+     */
+    public void merge(KeyTable other) {
+        lookups += other.lookups;
+        hits += other.hits;
+        for (String name : other.names) {
+            if (name != null && size < MAX_ENTRIES)
+                add(name);
+        }
+    }
+
+    private void add(String name) {
+        int hash = name.hashCode();
+        int mask = names.length - 1;
+        int slot = spread(hash) & mask;
+        for (String existing = names[slot]; existing != null; existing = names[slot]) {
+            if (hashes[slot] == hash && existing.equals(name))
+                return;
+            slot = (slot + 1) & mask;
+        }
+        insert(slot, name, hash);
+    }
+
+    private void insert(int slot, String name, int hash) {
+        names[slot] = name;
+        hashes[slot] = hash;
+        if (++size * 2 > names.length)
+            grow();
+    }
+
+    private void grow() {
+        String[] oldNames = names;
+        int[] oldHashes = hashes;
+        names = new String[oldNames.length * 2];
+        hashes = new int[oldNames.length * 2];
+        int mask = names.length - 1;
+        for (int i = 0; i < oldNames.length; i++) {
+            if (oldNames[i] == null)
+                continue;
+            int slot = spread(oldHashes[i]) & mask;
+            while (names[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            names[slot] = oldNames[i];
+            hashes[slot] = oldHashes[i];
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(String name, CharSequence text, int from, int to) {
+        int length = to - from;
+        if (name.length() != length)
+            return false;
+        if (text instanceof String)
+            return ((String) text).regionMatches(from, name, 0, length);
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != text.charAt(from + i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return number of names looked up
+     */
+    public long getLookups() {
+        return lookups;
+    }
+
+    /**
+     * @return number of lookups that reused an existing string
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return number of distinct names held
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return fraction of lookups that reused an existing string, or 0 if there were none
+     */
+    public double getHitRate() {
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
@@ -0,0 +1,585 @@
+package src.json.Parsing;
+
+import src.exception.JsonParseException;
+import src.exception.NotFoundException;
+import src.json.types.JsonElement;
+import src.json.types.JsonPath;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sidecar file with the byte offsets of the top-level values of a JSON file, so that one element
+ * of a huge document can be read by seeking to it instead of parsing everything before it.
+ * <p>
+ * The index is built in a single streaming pass over the bytes of the file and saved next to it
+ * with the suffix {@link #SUFFIX}. It lists the offset of every element of a root array, or the
+ * offsets and names of the members of a root object together with the elements or members of each
+ * of their values. A JSON Lines file is indexed as an array of its lines. The pass only
+ * follows brackets and strings; it does not validate the file.
+ * <p>
+ * The file is a header followed by tables, all numbers big-endian:
+ * <pre>
+ * header:       int magic, int version, long file size, long file modification time, long root table
+ * array table:  byte 0, long count, long offset of the closing bracket, long[count] element offsets
+ * object table: byte 1, int count, then per member: int key length, key in UTF-8,
+ *               long value offset, long offset of the following comma or brace, long table or -1
+ * </pre>
+ * Element offsets are stored back to back, so finding element {@code n} takes two reads however
+ * large the array is. Array tables are written while the file is scanned; object tables, which are
+ * usually small, are written when their object closes.
+ */
+public final class OffsetIndex {
+
+    /** Appended to the name of a file to get the name of its index. */
+    public static final String SUFFIX = ".idx";
+
+    private static final int MAGIC = 0x4A494458;
+    private static final int VERSION = 1;
+    private static final byte ARRAY = 0;
+    private static final byte OBJECT = 1;
+    /** Offset of the root table field in the header. */
+    private static final long ROOT_FIELD = 24;
+    /** Size of the fields of an array table before its element offsets. */
+    private static final long ARRAY_HEADER = 17;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private OffsetIndex() {
+    }
+
+    /**
+     * @param file a JSON file
+     * @return the path of its index
+     */
+    public static Path sidecarOf(Path file) {
+        return file.resolveSibling(file.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Scans {@code file} and saves its index next to it, replacing an older one.
+     *
+     * @param file      the JSON file
+     * @param jsonLines {@code true} if every line of the file is a separate value
+     * @return the number of values indexed
+     * @throws IOException        if the file cannot be read or the index cannot be written
+     * @throws JsonParseException if the brackets of the file are unbalanced or its root is not an
+     *                            array or object
+     */
+    public static long build(Path file, boolean jsonLines) throws IOException, JsonParseException {
+        Path sidecar = sidecarOf(file);
+        Path temporary = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+        long values;
+        try (FileChannel in = FileChannel.open(file);
+             FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Writer writer = new Writer(out);
+            writer.writeInt(MAGIC);
+            writer.writeInt(VERSION);
+            writer.writeLong(in.size());
+            writer.writeLong(Files.getLastModifiedTime(file).toMillis());
+            writer.writeLong(-1);
+
+            Scanner scanner = new Scanner(writer, jsonLines);
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            long offset = 0;
+            while (in.read(buffer) > 0) {
+                buffer.flip();
+                offset = scanner.scan(buffer, offset);
+                buffer.clear();
+            }
+            scanner.finish(offset);
+            writer.flush();
+            writer.patchLong(ROOT_FIELD, scanner.rootTable);
+            values = scanner.values;
+        } catch (IOException | JsonParseException ex) {
+            Files.deleteIfExists(temporary);
+            throw ex;
+        }
+        Files.move(temporary, sidecar, StandardCopyOption.REPLACE_EXISTING);
+        return values;
+    }
+
+    /**
+     * Reads the value at {@code path} from {@code file} through its index. Only the indexed value
+     * that the path leads into is parsed; the rest of the path is resolved in it.
+     *
+     * @param file the JSON file
+     * @param path path of at least one segment
+     * @return the value
+     * @throws NotFoundException if there is no up-to-date index, the path does not exist or the
+     *                           value is not valid JSON
+     * @throws IOException       if the file or its index cannot be read
+     */
+    public static JsonElement getValueAt(Path file, JsonPath path) throws NotFoundException, IOException {
+        Path sidecar = sidecarOf(file);
+        if (!Files.exists(sidecar))
+            throw new NotFoundException("No offset index for " + file.getFileName() + "; run index first");
+        if (path.length() == 0)
+            throw new NotFoundException("Empty JSON path");
+
+        try (RandomAccessFile index = new RandomAccessFile(sidecar.toFile(), "r");
+             FileChannel in = FileChannel.open(file)) {
+            if (index.length() < ROOT_FIELD + 8 || index.readInt() != MAGIC || index.readInt() != VERSION)
+                throw new NotFoundException(sidecar + " is not an offset index");
+            if (index.readLong() != in.size() || index.readLong() != Files.getLastModifiedTime(file).toMillis())
+                throw new NotFoundException("The offset index is older than the file; run index again");
+
+            long table = index.readLong();
+            String previousKey = "Main object";
+            int depth = 0;
+            long start;
+            long end;
+            while (true) {
+                String head = path.token(depth);
+                long child = -1;
+                index.seek(table);
+                if (index.readByte() == ARRAY) {
+                    long count = index.readLong();
+                    long close = index.readLong();
+                    if (!path.isIndex(depth))
+                        throw new NotFoundException("In array " + previousKey + ", '" + head + "' is not a valid index");
+                    int element = path.index(depth);
+                    if (element >= count)
+                        throw new NotFoundException(head + " is greater than the number of items in array " + previousKey);
+                    index.seek(table + ARRAY_HEADER + 8L * element);
+                    start = index.readLong();
+                    end = element + 1 < count ? index.readLong() : close;
+                } else {
+                    int count = index.readInt();
+                    start = -1;
+                    end = -1;
+                    for (int i = 0; i < count && start < 0; i++) {
+                        byte[] key = new byte[index.readInt()];
+                        index.readFully(key);
+                        if (head.equals(new String(key, StandardCharsets.UTF_8))) {
+                            start = index.readLong();
+                            end = index.readLong();
+                            child = index.readLong();
+                        } else {
+                            index.skipBytes(24);
+                        }
+                    }
+                    if (start < 0)
+                        throw new NotFoundException("JSON object '" + previousKey + "' has no key '" + head + "'");
+                }
+                previousKey = head;
+                depth++;
+                if (child < 0 || depth == path.length())
+                    break;
+                table = child;
+            }
+
+            JsonElement value = parse(in, start, end);
+            return value.getValueAt(path, depth, previousKey);
+        }
+    }
+
+    /**
+     * Parses the value between {@code start} and {@code end}, which may be followed by whitespace
+     * and the comma that separates it from the next one.
+     */
+    private static JsonElement parse(FileChannel in, long start, long end) throws IOException, NotFoundException {
+        if (end - start > Integer.MAX_VALUE - 8)
+            throw new NotFoundException("The value at offset " + start + " is too large to be read on its own");
+
+        ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+        while (bytes.hasRemaining() && in.read(bytes, start + bytes.position()) > 0) {
+        }
+        String text = new String(bytes.array(), 0, bytes.position(), StandardCharsets.UTF_8).strip();
+        if (text.isEmpty())
+            throw new NotFoundException("The value at offset " + start + " is a blank line");
+        if (text.endsWith(","))
+            text = text.substring(0, text.length() - 1);
+
+        JsonParseResult result = JsonParser.parseJson(text);
+        if (!result.isSuccess())
+            throw new NotFoundException("The value at offset " + start + " is not valid JSON: " + result.errorMessage);
+        return result.parsedData;
+    }
+
+    /**
+     * Follows the brackets and strings of the file and writes the tables. Only the root container
+     * and, when the root is an object, the containers directly inside it are indexed; deeper
+     * levels are only counted.
+     */
+    private static final class Scanner {
+        private final Writer writer;
+        private final boolean jsonLines;
+
+        /** Number of containers open; a JSON Lines file is treated as one array. */
+        private int depth;
+        private boolean inString;
+        private boolean escape;
+        /** Whether the next significant byte starts a value of the innermost container, at depth 1 or 2. */
+        private boolean expectValue;
+        /** Whether the next string is a member name of the innermost object, at depth 1 or 2. */
+        private boolean expectKey;
+        /** Whether the string being read is a member name of an indexed object. */
+        private boolean inKey;
+        /** Offset of the current line of a JSON Lines file. */
+        private long lineStart;
+        private final ByteArrayOutputStream key = new ByteArrayOutputStream();
+
+        /** Root container type, or -1 before the root is reached. */
+        private byte rootKind = -1;
+        /** The indexed container open at depth 1 and 2, if any. */
+        private final Table[] tables = new Table[3];
+
+        long rootTable = -1;
+        long values;
+
+        Scanner(Writer writer, boolean jsonLines) throws IOException {
+            this.writer = writer;
+            this.jsonLines = jsonLines;
+            if (jsonLines) {
+                rootKind = ARRAY;
+                depth = 1;
+                tables[1] = openTable(ARRAY);
+                rootTable = tables[1].position;
+                expectValue = true;
+            }
+        }
+
+        /**
+         * @param buffer next bytes of the file
+         * @param offset offset of the first of them
+         * @return offset of the byte after them
+         */
+        long scan(ByteBuffer buffer, long offset) throws IOException, JsonParseException {
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                long position = offset++;
+
+                if (b == '\n' && jsonLines) {
+                    nextLine(offset);
+                    continue;
+                }
+                if (inString) {
+                    if (escape) {
+                        escape = false;
+                    } else if (b == '\\') {
+                        escape = true;
+                    } else if (b == '"') {
+                        inString = false;
+                        if (inKey)
+                            addMember();
+                        continue;
+                    }
+                    if (inKey)
+                        key.write(b);
+                    continue;
+                }
+
+                if (b == ' ' || b == '\t' || b == '\r' || b == '\n')
+                    continue;
+                if (depth == 0) {
+                    if (rootKind >= 0)
+                        throw new JsonParseException("Unexpected character after the root value at offset " + position, clamp(position));
+                    if (b != '[' && b != '{')
+                        throw new JsonParseException("Only files whose root is an array or object can be indexed", clamp(position));
+                }
+
+                if (expectValue) {
+                    if (b != ']' && b != '}' || jsonLines && depth == 1)
+                        valueStart(position);
+                    expectValue = false;
+                }
+
+                switch (b) {
+                    case '"':
+                        inString = true;
+                        if (expectKey) {
+                            inKey = true;
+                            key.reset();
+                            expectKey = false;
+                        }
+                        break;
+                    case ':':
+                        if (separated() != null)
+                            expectValue = true;
+                        break;
+                    case ',': {
+                        Table table = separated();
+                        if (table != null) {
+                            valueEnd(position);
+                            expectValue = table.kind == ARRAY;
+                            expectKey = table.kind == OBJECT;
+                        }
+                        break;
+                    }
+                    case '[':
+                    case '{':
+                        open(b == '[' ? ARRAY : OBJECT, position);
+                        break;
+                    case ']':
+                    case '}':
+                        close(position);
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return offset;
+        }
+
+        /**
+         * Starts the next line of a JSON Lines file. Lines are separate values, so whatever an
+         * invalid line left open is dropped; reading that line through the index reports the error.
+         * A blank line is still a record, so that records keep their line index.
+         *
+         * @param next offset of the next line
+         */
+        private void nextLine(long next) throws IOException {
+            if (expectValue)
+                valueStart(lineStart);
+            lineStart = next;
+            depth = 1;
+            inString = false;
+            escape = false;
+            inKey = false;
+            expectKey = false;
+            expectValue = true;
+        }
+
+        /**
+         * @return the table of the innermost open container, or {@code null} if it is not indexed
+         */
+        private Table indexed() {
+            return depth <= 2 ? tables[depth] : null;
+        }
+
+        /**
+         * @return the indexed table a separator at the current depth belongs to, or {@code null}.
+         *         Only a new line starts a record of a JSON Lines file, so separators between
+         *         values on one line are ignored.
+         */
+        private Table separated() {
+            return jsonLines && depth == 1 ? null : indexed();
+        }
+
+        private void open(byte kind, long position) throws IOException {
+            depth++;
+            if (depth == 1) {
+                rootKind = kind;
+                tables[1] = openTable(kind);
+                if (kind == ARRAY)
+                    rootTable = tables[1].position;
+            } else if (depth == 2) {
+                tables[2] = rootKind == OBJECT ? openTable(kind) : null;
+                if (tables[2] != null && kind == ARRAY)
+                    tables[1].current().table = tables[2].position;
+            }
+            if (indexed() != null) {
+                expectValue = kind == ARRAY;
+                expectKey = kind == OBJECT;
+            }
+        }
+
+        private void close(long position) throws IOException, JsonParseException {
+            if (jsonLines && depth == 1)
+                return;
+            if (depth == 0)
+                throw new JsonParseException("Unbalanced bracket at offset " + position, clamp(position));
+            Table table = indexed();
+            if (table != null) {
+                valueEnd(position);
+                closeTable(table, position);
+                if (table.kind == OBJECT) {
+                    if (depth == 1)
+                        rootTable = table.position;
+                    else
+                        tables[1].current().table = table.position;
+                }
+                tables[depth] = null;
+            }
+            depth--;
+            expectValue = false;
+            expectKey = false;
+        }
+
+        /**
+         * Checks that the whole file was seen and completes the root table of a JSON Lines file.
+         *
+         * @param size size of the file
+         */
+        void finish(long size) throws IOException, JsonParseException {
+            if (jsonLines) {
+                if (expectValue && lineStart < size)
+                    valueStart(lineStart);
+                closeTable(tables[1], size);
+                return;
+            }
+            if (inString)
+                throw new JsonParseException("Unterminated string at the end of the file", clamp(size));
+            if (rootKind < 0)
+                throw new JsonParseException("The file is empty", 0);
+            if (depth != 0)
+                throw new JsonParseException("Unclosed bracket at the end of the file", clamp(size));
+        }
+
+        private void valueStart(long position) throws IOException {
+            Table table = tables[depth];
+            if (table == null)
+                return;
+            values++;
+            if (table.kind == ARRAY) {
+                writer.writeLong(position);
+                table.count++;
+            } else if (!table.members.isEmpty()) {
+                table.current().start = position;
+            }
+        }
+
+        private void valueEnd(long position) {
+            Table table = tables[depth];
+            if (table != null && table.kind == OBJECT && !table.members.isEmpty() && table.current().end < 0)
+                table.current().end = position;
+        }
+
+        private void addMember() {
+            inKey = false;
+            Table table = tables[depth];
+            table.members.add(new Member(new String(key.toByteArray(), StandardCharsets.UTF_8)));
+        }
+
+        private Table openTable(byte kind) throws IOException {
+            Table table = new Table(kind);
+            if (kind == ARRAY) {
+                table.position = writer.position();
+                writer.writeByte(ARRAY);
+                writer.writeLong(0);
+                writer.writeLong(0);
+            }
+            return table;
+        }
+
+        private void closeTable(Table table, long position) throws IOException {
+            if (table.kind == ARRAY) {
+                writer.flush();
+                writer.patchLong(table.position + 1, table.count);
+                writer.patchLong(table.position + 9, position);
+                return;
+            }
+
+            table.position = writer.position();
+            writer.writeByte(OBJECT);
+            writer.writeInt(table.members.size());
+            for (Member member : table.members) {
+                byte[] name = member.key.getBytes(StandardCharsets.UTF_8);
+                writer.writeInt(name.length);
+                writer.write(name);
+                writer.writeLong(member.start);
+                writer.writeLong(member.end);
+                writer.writeLong(member.table);
+            }
+        }
+
+        private static int clamp(long position) {
+            return (int) Math.min(position, Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * An indexed container while it is being scanned. Arrays write their element offsets straight
+     * to the index, objects keep their members until they close.
+     */
+    private static final class Table {
+        final byte kind;
+        final List<Member> members = new ArrayList<>();
+        long count;
+        /** Offset of the table in the index. */
+        long position = -1;
+
+        Table(byte kind) {
+            this.kind = kind;
+        }
+
+        Member current() {
+            return members.get(members.size() - 1);
+        }
+    }
+
+    private static final class Member {
+        final String key;
+        long start = -1;
+        long end = -1;
+        long table = -1;
+
+        Member(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Buffered output to the index that keeps track of its position and can go back to fill in
+     * fields written before their value was known.
+     */
+    private static final class Writer {
+        private final FileChannel out;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private long flushed;
+
+        Writer(FileChannel out) {
+            this.out = out;
+        }
+
+        long position() {
+            return flushed + buffer.position();
+        }
+
+        void writeByte(byte value) throws IOException {
+            room(1);
+            buffer.put(value);
+        }
+
+        void writeInt(int value) throws IOException {
+            room(4);
+            buffer.putInt(value);
+        }
+
+        void writeLong(long value) throws IOException {
+            room(8);
+            buffer.putLong(value);
+        }
+
+        void write(byte[] bytes) throws IOException {
+            for (int written = 0; written < bytes.length; ) {
+                room(1);
+                int length = Math.min(buffer.remaining(), bytes.length - written);
+                buffer.put(bytes, written, length);
+                written += length;
+            }
+        }
+
+        void patchLong(long position, long value) throws IOException {
+            ByteBuffer field = ByteBuffer.allocate(8).putLong(0, value);
+            while (field.hasRemaining()) {
+                out.write(field, position + field.position());
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                flushed += out.write(buffer, flushed);
+            }
+            buffer.clear();
+        }
+
+        private void room(int bytes) throws IOException {
+            if (buffer.remaining() < bytes)
+                flush();
+        }
+    }
+}
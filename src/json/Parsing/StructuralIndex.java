@@ -0,0 +1,220 @@
+package src.json.Parsing;
+
+/**
+ * First parsing stage: a single pass over the text that locates string literals and checks
+ * that brackets and braces are balanced.
+ * <p>
+ * The bodies of strings are skipped with {@link String#indexOf(int, int)}, which the JVM compiles
+ * to vector instructions, so only the characters between strings are looked at one by one.
+ * Brackets inside strings are ignored. The boundaries of every string are recorded in document
+ * order so that {@link JsonParser} can jump over string bodies instead of scanning them again.
+ * When the document is an array, the commas that separate its top-level elements are recorded
+ * too, which lets the elements be parsed independently.
+ */
+public class StructuralIndex {
+    private int[] stringStarts = new int[64];
+    private int[] stringEnds = new int[64];
+    private int stringCount;
+
+    /** Offsets of the commas between elements of a top-level array. */
+    private int[] separators = new int[16];
+    private int separatorCount;
+
+    /** Offset of the bracket that closes the root value, or -1. */
+    private int rootEnd = -1;
+
+    /** Offset of the first unbalanced bracket, or -1 if the text is balanced. */
+    private int errorPosition = -1;
+    /** {@code true} if the bracket at {@link #errorPosition} is never closed, {@code false} if it closes nothing. */
+    private boolean unclosed;
+
+    private StructuralIndex() {}
+
+    /**
+     * Indexes {@code json} between {@code begin} and {@code end}.
+     *
+     * @param json  the input
+     * @param begin first offset to index
+     * @param end   offset just past the last character to index
+     * @return the index; check {@link #isBalanced()} before using it for parsing
+     */
+    public static StructuralIndex build(String json, int begin, int end) {
+        StructuralIndex index = new StructuralIndex();
+        int[] open = new int[32];
+        int depth = 0;
+        boolean arrayRoot = begin < end && json.charAt(begin) == '[';
+
+        for (int i = begin; i < end; i++) {
+            char c = json.charAt(i);
+            switch (c) {
+                case '"': {
+                    int close = closingQuote(json, i, end);
+                    index.addString(i, close);
+                    if (close < 0)
+                        i = end;
+                    else
+                        i = close - 1;
+                    break;
+                }
+                case '{':
+                case '[':
+                    if (depth == open.length) {
+                        int[] grown = new int[depth * 2];
+                        System.arraycopy(open, 0, grown, 0, depth);
+                        open = grown;
+                    }
+                    open[depth++] = i;
+                    break;
+                case '}':
+                case ']': {
+                    char expected = c == '}' ? '{' : '[';
+                    if (depth == 0 || json.charAt(open[depth - 1]) != expected) {
+                        index.errorPosition = i;
+                        return index;
+                    }
+                    depth--;
+                    if (depth == 0 && index.rootEnd < 0)
+                        index.rootEnd = i;
+                    break;
+                }
+                case ',':
+                    if (depth == 1 && arrayRoot)
+                        index.addSeparator(i);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        if (depth > 0) {
+            index.errorPosition = open[depth - 1];
+            index.unclosed = true;
+        }
+        return index;
+    }
+
+    /**
+     * Finds the quote that closes the string opened at {@code start}, skipping escaped quotes.
+     *
+     * @return offset just past the closing quote, or -1 if the string is never closed
+     */
+    private static int closingQuote(String json, int start, int end) {
+        int quote = start;
+        while (true) {
+            quote = json.indexOf('"', quote + 1);
+            if (quote < 0 || quote >= end)
+                return -1;
+            int backslash = quote - 1;
+            while (backslash > start && json.charAt(backslash) == '\\') backslash--;
+            if (((quote - 1 - backslash) & 1) == 0)
+                return quote + 1;
+        }
+    }
+
+    private void addString(int start, int end) {
+        if (stringCount == stringStarts.length) {
+            int capacity = stringCount * 2;
+            int[] starts = new int[capacity];
+            int[] ends = new int[capacity];
+            System.arraycopy(stringStarts, 0, starts, 0, stringCount);
+            System.arraycopy(stringEnds, 0, ends, 0, stringCount);
+            stringStarts = starts;
+            stringEnds = ends;
+        }
+        stringStarts[stringCount] = start;
+        stringEnds[stringCount] = end;
+        stringCount++;
+    }
+
+    private void addSeparator(int position) {
+        if (separatorCount == separators.length) {
+            int[] grown = new int[separatorCount * 2];
+            System.arraycopy(separators, 0, grown, 0, separatorCount);
+            separators = grown;
+        }
+        separators[separatorCount++] = position;
+    }
+
+    /**
+     * @return {@code true} if every bracket and brace is matched
+     */
+    public boolean isBalanced() {
+        return errorPosition < 0;
+    }
+
+    /**
+     * @return offset of the offending bracket, or -1 if balanced
+     */
+    public int getErrorPosition() {
+        return errorPosition;
+    }
+
+    /**
+     * @return {@code true} if the error is a bracket that is never closed rather than a stray closing one
+     */
+    public boolean isUnclosed() {
+        return unclosed;
+    }
+
+    /**
+     * @return number of string literals found
+     */
+    public int stringCount() {
+        return stringCount;
+    }
+
+    /**
+     * @param n ordinal of a string literal
+     * @return offset of its opening quote
+     */
+    public int stringStart(int n) {
+        return stringStarts[n];
+    }
+
+    /**
+     * @param n ordinal of a string literal
+     * @return offset just past its closing quote, or -1 if it is never closed
+     */
+    public int stringEnd(int n) {
+        return stringEnds[n];
+    }
+
+    /**
+     * @param offset position in the input
+     * @return ordinal of the first string literal that starts at or after {@code offset}
+     */
+    public int firstStringFrom(int offset) {
+        int low = 0;
+        int high = stringCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (stringStarts[mid] < offset)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * @return number of commas between the elements of a top-level array
+     */
+    public int separatorCount() {
+        return separatorCount;
+    }
+
+    /**
+     * @param n ordinal of a top-level separator
+     * @return its offset
+     */
+    public int separator(int n) {
+        return separators[n];
+    }
+
+    /**
+     * @return offset of the bracket that closes the root value, or -1 if the root is not a container
+     */
+    public int getRootEnd() {
+        return rootEnd;
+    }
+}
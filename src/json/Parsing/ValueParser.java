@@ -13,8 +13,8 @@ public class ValueParser {
      * <ul>
      *   <li>If {@code input} equals {@code null} (ignoring case and whitespace), the method returns {@code null}.</li>
      *   <li>Double‑quoted text becomes a {@link JsonString}.</li>
-     *   <li>A whole number becomes a {@link JsonNumber} backed by {@code Integer}.</li>
-     *   <li>A decimal number becomes a {@link JsonNumber} backed by {@code Double}.</li>
+     *   <li>A number in JSON syntax becomes a {@link JsonNumber}; whole numbers are kept as {@code long}
+     *       and values that neither {@code long} nor {@code double} holds exactly keep their text.</li>
      *   <li>If none match, {@link ValueParseResult#FailedParse()} is returned.</li>
      * </ul>
      *
@@ -33,14 +33,9 @@ public class ValueParser {
 
             return new ValueParseResult(new JsonString(input.substring(1, input.length() - 1)));
         }
-        try {
-            return new ValueParseResult(new JsonNumber(Integer.parseInt(input)));
-        } catch (NumberFormatException ignored) {}
-
-
-        try {
-            return new ValueParseResult(new JsonNumber(Double.parseDouble(input)));
-        } catch (NumberFormatException ignored) {}
+        if (!input.isEmpty() && JsonParser.scanNumber(input, 0, input.length()) == input.length()) {
+            return new ValueParseResult(JsonParser.numberValue(input));
+        }
 
 
         return ValueParseResult.FailedParse();
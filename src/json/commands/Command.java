@@ -1,5 +1,7 @@
 package src.json.commands;
 
+import java.io.PrintStream;
+
 /**
  * Command interface in the Command pattern: each concrete CLI
  * command implements this.
@@ -18,5 +20,24 @@ public interface Command {
 
     String execute(String[] args);
 
+    /**
+     * Executes the command and prints its result to {@code out}, followed by a line separator.
+     * Commands whose output can be long override this to print it while it is produced.
+     *
+     * @param args arguments passed from the CLI
+     * @param out  console the result is printed to
+     */
+    default void execute(String[] args, PrintStream out) {
+        out.println(execute(args));
+    }
+
+    /**
+     * @return {@code true} if the command is given the rest of the line exactly as typed, as a
+     *         single argument, instead of the arguments the CLI splits it into
+     */
+    default boolean takesRawArguments() {
+        return false;
+    }
+
 
 }
@@ -17,7 +17,13 @@ public enum CommandIdentifier {
     REMOVE("remove"),
     MOVE("move"),
     CREATE("create"),
-    CLOSE("close");
+    CLOSE("close"),
+    STATS("stats"),
+    UNDO("undo"),
+    REDO("redo"),
+    HISTORY("history"),
+    QUERY("query"),
+    INDEX("index");
     /** Literal keyword entered by the user (always lowercase). */
     private final String value;
 
@@ -0,0 +1,100 @@
+package src.json.commands;
+
+import src.json.types.JsonFormat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Separates the output options shared by {@code print}, {@code save}, {@code saveas} and {@code query}
+ * from the remaining arguments of the command.
+ * <p>
+ * Recognized options are {@code --compact}, {@code --indent <n>} (n spaces per level)
+ * and {@code --crlf}.
+ */
+class FormatOptions {
+
+    private final List<String> arguments = new ArrayList<>();
+    private JsonFormat format = JsonFormat.PRETTY;
+    private String error;
+
+    /**
+     * @param args the arguments of the command
+     */
+    FormatOptions(String[] args) {
+        boolean compact = false;
+        Integer indent = null;
+        boolean crlf = false;
+
+        for (int i = 0; i < args.length && error == null; i++) {
+            switch (args[i]) {
+                case "--compact":
+                    compact = true;
+                    break;
+                case "--indent":
+                    if (i + 1 == args.length) {
+                        error = "Missing value for --indent";
+                        break;
+                    }
+                    try {
+                        indent = Integer.parseInt(args[++i]);
+                        if (indent < 0)
+                            error = "Invalid indent width " + args[i];
+                    } catch (NumberFormatException ex) {
+                        error = "Invalid indent width " + args[i];
+                    }
+                    break;
+                case "--crlf":
+                    crlf = true;
+                    break;
+                default:
+                    if (args[i].startsWith("--"))
+                        error = "Unknown option " + args[i];
+                    else
+                        arguments.add(args[i]);
+                    break;
+            }
+        }
+
+        if (error == null && compact && indent != null)
+            error = "--compact and --indent cannot be combined";
+        if (error != null)
+            return;
+
+        if (compact)
+            format = JsonFormat.COMPACT;
+        else if (indent != null)
+            format = JsonFormat.indented(indent);
+        if (crlf)
+            format = format.withLineSeparator("\r\n");
+    }
+
+    /**
+     * @return the arguments that are not output options, in their original order
+     */
+    String[] getArguments() {
+        return arguments.toArray(new String[0]);
+    }
+
+    /**
+     * @return the requested layout, {@link JsonFormat#PRETTY} by default
+     */
+    JsonFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * @return the layout for a whole JSON Lines document: one compact record per line, keeping
+     *         only the requested line separator
+     */
+    JsonFormat getRecordFormat() {
+        return JsonFormat.COMPACT.withLineSeparator(format.getLineSeparator());
+    }
+
+    /**
+     * @return a message describing an invalid option, or {@code null}
+     */
+    String getError() {
+        return error;
+    }
+}
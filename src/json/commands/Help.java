@@ -8,15 +8,22 @@ package src.json.commands;
 public class Help implements Command {
 
     private String helpMessage = "Available Commands:\n"
-            + "validate: Checks if the opened file is valid JSON syntax. Reports any issues with details.\n"
-            + "print: Displays the contents of the object in a readable format.\n"
-            + "search <key>: Searches for data under the specified key and lists the found values.\n"
+            + "open <file> [--lines]: Opens a file. With --lines, or for .jsonl/.ndjson files, every line is a separate JSON value addressed as [n], where [n] is line n + 1 of the file; blank lines are kept as empty records.\n"
+            + "validate [--lazy | --index]: Checks if the opened file is valid JSON syntax. Reports any issues with details. With --lazy, only an index of the document is built and values are loaded when accessed; this is not available for JSON Lines or memory-mapped files. With --index, an index of member names is built as well, so that search only visits the matches; edits keep it up to date.\n"
+            + "print [<path>] [--compact | --indent <n>] [--crlf]: Displays the contents of the object, or the part of it at the given path. By default it is indented with tabs; --compact removes all whitespace, --indent uses n spaces per level and --crlf ends lines with CRLF. Before validate, a path is read through the offset index built by index.\n"
+            + "search <key> [--limit <n> | --first]: Searches for data under the specified key and lists the found values. --limit stops after the first n values and --first after the first one.\n"
+            + "query <expression> [--compact | --indent <n>] [--crlf]: Lists the values matched by a JSONPath query, e.g. $..book[?(@.price > 10)].title. Supports *, .., [start:end:step], unions such as [0,2] and filters on @. The rest of the line is used as typed, so string literals are quoted as in [?(@.title == \"B\")]; output options go at the end.\n"
             + "set <path> <string>: Sets the value at the specified path with the provided JSON string, if the path exists.\n"
             + "create <path> <string>: Creates an element at the specified path with the given JSON string.\n"
             + "delete <path>: Deletes the element at the specified path if it exists.\n"
             + "move <from> <to>: Moves an element from the specified path to another path.\n"
-            + "save [<path>]: Saves the object at the specified path or the whole object if no path is provided.\n"
-            + "saveas <file> [<path>]: Saves the object to a new file. If a path is provided, saves that part of the object.\n";
+            + "save [--compact | --indent <n>] [--crlf]: Saves the object to the opened file, formatted as for print. JSON Lines documents are saved one compact record per line.\n"
+            + "saveas <file> [<path>] [--compact | --indent <n>] [--crlf]: Saves the object to a new file. If a path is provided, saves that part of the object; before validate, it is read through the offset index built by index.\n"
+            + "index: Saves an index of the byte offsets of the top-level values of the opened file next to it, as <file>.idx, so that print and saveas can read a value such as [5000000].user without parsing the whole file.\n"
+            + "stats: Shows statistics about the loaded document, such as how many member names were shared while parsing, how many subtrees search could skip, and the size of the key index.\n"
+            + "undo: Reverts the most recent set, remove, move or create.\n"
+            + "redo: Applies the most recently undone edit again.\n"
+            + "history [--entries <n>] [--bytes <n>]: Shows how many edits can be undone and redone. --entries sets how many edits are kept and --bytes limits the estimated memory they hold (0 for no limit).\n";
 
 
     /**
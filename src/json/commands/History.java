@@ -0,0 +1,57 @@
+package src.json.commands;
+
+import src.json.JsonFileHandler;
+
+/**
+ * Shows the state of the undo history and changes its limits.
+ * <p>
+ * {@code --entries <n>} sets how many edits are kept and {@code --bytes <n>} caps the estimated
+ * size of the values kept for them, 0 meaning no cap.
+ */
+public class History implements Command {
+
+    private JsonFileHandler jsonFileHandler;
+
+    public History(JsonFileHandler jsonFileHandler) {
+        this.jsonFileHandler = jsonFileHandler;
+    }
+
+    /**
+     * Reports the history, after applying any new limits.
+     *
+     * @param args optional {@code --entries <n>} and {@code --bytes <n>}
+     * @return the state of the history or an error message
+     */
+    @Override
+    public String execute(String[] args) {
+        if(args.length == 0)
+            return jsonFileHandler.getHistory();
+
+        Integer maxEntries = null;
+        Long maxBytes = null;
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 == args.length)
+                return "Missing value for " + args[i];
+            try {
+                switch (args[i]) {
+                    case "--entries":
+                        maxEntries = Integer.parseInt(args[i + 1]);
+                        if (maxEntries < 0)
+                            return "Invalid history limit " + args[i + 1];
+                        break;
+                    case "--bytes":
+                        maxBytes = Long.parseLong(args[i + 1]);
+                        if (maxBytes < 0)
+                            return "Invalid history limit " + args[i + 1];
+                        break;
+                    default:
+                        return "Unknown option " + args[i];
+                }
+            } catch (NumberFormatException ex) {
+                return "Invalid history limit " + args[i + 1];
+            }
+        }
+
+        return jsonFileHandler.setHistoryLimits(maxEntries, maxBytes);
+    }
+}
@@ -0,0 +1,30 @@
+package src.json.commands;
+
+import src.json.FileHandler;
+
+/**
+ * Builds the offset index of the opened file, so that {@link Print} and {@link SaveAs} can read
+ * single values of it without the file being validated.
+ */
+public class Index implements Command {
+
+    private FileHandler fileHandler;
+
+    public Index(FileHandler fileHandler) {
+        this.fileHandler = fileHandler;
+    }
+
+    /**
+     * Scans the opened file and saves its offset index next to it.
+     *
+     * @param args expects no arguments
+     * @return a confirmation with the number of values indexed, or an error message
+     */
+    @Override
+    public String execute(String[] args) {
+        if(args.length != 0)
+            return "Incorrect argument count";
+
+        return fileHandler.buildOffsetIndex();
+    }
+}
@@ -20,18 +20,21 @@ public class Open implements Command {
     /**
      * Opens the specified file.
      *
-     * @param args expects exactly one path argument
+     * @param args the path, optionally followed by {@code --lines} to open the file as JSON Lines
      * @return outcome message from the operation
      */
 
     @Override
     public String execute(String[] args) {
 
-        if(args.length!=1)
+        if(args.length < 1 || args.length > 2)
             return "Incorrect argument count";
 
+        boolean jsonLines = args.length == 2;
+        if(jsonLines && !args[1].equals("--lines"))
+            return "Unknown option " + args[1];
 
-        return fileHandler.openFile(args[0]);
+        return fileHandler.openFile(args[0], jsonLines);
 
 
     }
@@ -1,15 +1,23 @@
 package src.json.commands;
 
+import src.exception.NotFoundException;
+import src.json.FileHandler;
 import src.json.JsonFileHandler;
+import src.json.types.JsonElement;
 
 /**
- * Prints the currently-loaded JSON document in structured form.
+ * Prints the currently-loaded JSON document, or a subtree of it, in structured form.
+ * <p>
+ * If the opened file has not been validated, a subtree is read from the file through its offset
+ * index instead, see {@link Index}.
  */
 public class Print implements Command {
 
     private JsonFileHandler jsonFileHandler;
+    private FileHandler fileHandler;
 
-    public Print(JsonFileHandler jsonFileHandler) {
+    public Print(FileHandler fileHandler, JsonFileHandler jsonFileHandler) {
+        this.fileHandler = fileHandler;
         this.jsonFileHandler = jsonFileHandler;
     }
 
@@ -17,18 +25,33 @@ public class Print implements Command {
     /**
      * Prints the formatted JSON.
      *
-     * @param args expects no arguments
-     * @return the pretty-printed JSON or an error message
+     * @param args an optional JSON path, and output options, see {@link FormatOptions}
+     * @return the formatted JSON or an error message
      */
 
     @Override
     public String execute(String[] args) {
 
-        if(args.length != 0)
+        FormatOptions options = new FormatOptions(args);
+        if(options.getError() != null)
+            return options.getError();
+        args = options.getArguments();
+
+        if(args.length > 1)
         {
             return "Incorrect argument count";
         }
 
-        return jsonFileHandler.getStructuredJson();
+        if(args.length == 0)
+            return jsonFileHandler.getStructuredJson(options.getFormat());
+
+        try {
+            JsonElement value = jsonFileHandler.getDocument() != null
+                    ? jsonFileHandler.getValueAt(args[0])
+                    : fileHandler.readIndexed(args[0]);
+            return value.toJson(0, options.getFormat());
+        } catch (NotFoundException ex) {
+            return ex.getMessage();
+        }
     }
 }
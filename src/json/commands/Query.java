@@ -0,0 +1,108 @@
+package src.json.commands;
+
+import src.json.JsonFileHandler;
+
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Runs a JSONPath query against the loaded document and prints the matches.
+ * <p>
+ * The CLI passes the rest of the line exactly as typed, so string literals in filters keep their
+ * quotes, e.g. {@code query $.store.book[?(@.title == "Moby Dick")]}. A query cannot start with
+ * a quote, so a query wrapped in double quotes as a whole, as other commands accept, is unwrapped.
+ * Output options are taken from the end of the line. On the console, each match is printed as
+ * soon as it is found.
+ */
+public class Query implements Command {
+
+    private JsonFileHandler jsonFileHandler;
+
+    public Query(JsonFileHandler jsonFileHandler) {
+        this.jsonFileHandler = jsonFileHandler;
+    }
+
+    /**
+     * Executes the <code>query</code> command.
+     *
+     * @param args the query, followed by output options as for {@link Print}; arguments are
+     *             joined with single spaces
+     * @return the matches, or a not-found / error message
+     */
+    @Override
+    public String execute(String[] args) {
+        StringBuilder sb = new StringBuilder();
+        String error = query(args, sb);
+        return error != null ? error : sb.toString();
+    }
+
+    /**
+     * Executes the <code>query</code> command, printing each match as soon as it is found.
+     *
+     * @param args the query, followed by output options as for {@link Print}
+     * @param out  console the matches are printed to
+     */
+    @Override
+    public void execute(String[] args, PrintStream out) {
+        String error = query(args, out);
+        out.println(error != null ? error : "");
+    }
+
+    /**
+     * @return an error message if the arguments are invalid, otherwise {@code null} once the
+     *         matches or the not-found message are written to {@code out}
+     */
+    private String query(String[] args, Appendable out) {
+
+        String expression = String.join(" ", args).strip();
+        Deque<String> trailing = new ArrayDeque<>();
+        while (true) {
+            int cut = lastTokenStart(expression);
+            String last = expression.substring(cut);
+            String before = expression.substring(0, cut).stripTrailing();
+            if (last.equals("--compact") || last.equals("--crlf") || last.equals("--indent")) {
+                trailing.addFirst(last);
+                expression = before;
+            } else if (before.endsWith("--indent") && lastTokenStart(before) == before.length() - "--indent".length()) {
+                trailing.addFirst(last);
+                trailing.addFirst("--indent");
+                expression = before.substring(0, before.length() - "--indent".length()).stripTrailing();
+            } else {
+                break;
+            }
+        }
+
+        if (expression.length() > 1 && expression.startsWith("\"") && expression.endsWith("\""))
+            expression = expression.substring(1, expression.length() - 1);
+
+        FormatOptions options = new FormatOptions(trailing.toArray(new String[0]));
+        if(options.getError() != null)
+            return options.getError();
+
+        if(expression.isEmpty())
+        {
+            return "Incorrect argument count";
+        }
+
+        jsonFileHandler.query(expression, options.getFormat(), out);
+        return null;
+    }
+
+    /**
+     * The query takes the line as typed.
+     */
+    @Override
+    public boolean takesRawArguments() {
+        return true;
+    }
+
+    /**
+     * @return the index where the last whitespace-separated token of {@code text} starts
+     */
+    private static int lastTokenStart(String text) {
+        int start = text.length();
+        while (start > 0 && !Character.isWhitespace(text.charAt(start - 1))) start--;
+        return start;
+    }
+}
@@ -0,0 +1,29 @@
+package src.json.commands;
+
+import src.json.JsonFileHandler;
+
+/**
+ * Applies again the edit most recently reverted by {@code undo}.
+ */
+public class Redo implements Command {
+
+    private JsonFileHandler jsonFileHandler;
+
+    public Redo(JsonFileHandler jsonFileHandler) {
+        this.jsonFileHandler = jsonFileHandler;
+    }
+
+    /**
+     * Redoes one edit.
+     *
+     * @param args expects no arguments
+     * @return the edit that was redone or an error message
+     */
+    @Override
+    public String execute(String[] args) {
+        if(args.length != 0)
+            return "Incorrect argument count";
+
+        return jsonFileHandler.redo();
+    }
+}
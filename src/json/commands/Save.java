@@ -2,6 +2,7 @@ package src.json.commands;
 
 import src.json.FileHandler;
 import src.json.JsonFileHandler;
+import src.json.types.JsonElement;
 /**
  * Saves the currently-open JSON document back to its original file.
  */
@@ -16,16 +17,25 @@ public class Save implements Command {
     /**
      * Saves the document.
      *
-     * @param args expects no arguments
+     * @param args output options only, see {@link FormatOptions}; JSON Lines documents are
+     *             always written one compact record per line
      * @return empty string on success or an error message
      */
     @Override
     public String execute(String[] args) {
-        if(args.length != 0)
+        FormatOptions options = new FormatOptions(args);
+        if(options.getError() != null)
+            return options.getError();
+
+        if(options.getArguments().length != 0)
         {
             return "Incorrect argument count";
         }
 
-        return fileHandler.save(jsonFileHandler.getStructuredJson());
+        JsonElement document = jsonFileHandler.getDocument();
+        if(document == null)
+            return "No file opened";
+
+        return fileHandler.save(document, fileHandler.isJsonLines() ? options.getRecordFormat() : options.getFormat());
     }
 }
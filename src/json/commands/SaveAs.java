@@ -1,10 +1,14 @@
 package src.json.commands;
 
 import src.json.FileHandler;
+import src.exception.NotFoundException;
 import src.json.JsonFileHandler;
+import src.json.types.JsonElement;
+import src.json.types.JsonFormat;
 /**
  * Saves the current JSON document—or a subtree of it—to a new file.
  * Behaves like the shell command <code>saveas &lt;file&gt; [&lt;path&gt;]</code>.
+ * If the opened file has not been validated, the subtree is read through its offset index.
  */
 
 
@@ -22,20 +26,44 @@ public class SaveAs implements Command {
      *
      * @param args if length == 1, {@code args[0]} is the target file;
      *             if length == 2, {@code args[0]} is the target file and
-     *             {@code args[1]} is a JSON path whose subtree will be saved
+     *             {@code args[1]} is a JSON path whose subtree will be saved;
+     *             output options (see {@link FormatOptions}) may appear anywhere
      * @return empty string on success or an explanatory message
      */
 
     @Override
     public String execute(String[] args)
     {
-        if(args.length == 1) {
-            return fileHandler.saveAs(jsonFileHandler.getStructuredJson());
-        }else if(args.length == 2) return fileHandler.saveAs(args[0],args[1]);
+        FormatOptions options = new FormatOptions(args);
+        if(options.getError() != null)
+            return options.getError();
+        args = options.getArguments();
 
+        if(args.length != 1 && args.length != 2)
+            return "Incorrect argument count";
 
+        JsonElement toSave = jsonFileHandler.getDocument();
+        if(toSave == null && args.length == 2) {
+            try {
+                toSave = fileHandler.readIndexed(args[1]);
+            } catch (NotFoundException ex) {
+                return ex.getMessage();
+            }
+            return fileHandler.saveAs(args[0], toSave, options.getFormat());
+        }
+        if(toSave == null)
+            return "No file opened";
 
+        JsonFormat format = fileHandler.isJsonLines() ? options.getRecordFormat() : options.getFormat();
+        if(args.length == 2) {
+            try {
+                toSave = jsonFileHandler.getValueAt(args[1]);
+            } catch (NotFoundException ex) {
+                return ex.getMessage();
+            }
+            format = options.getFormat();
+        }
 
-        return "Incorrect argument count";
+        return fileHandler.saveAs(args[0], toSave, format);
     }
 }
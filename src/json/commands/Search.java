@@ -1,9 +1,14 @@
 package src.json.commands;
 
 import src.json.JsonFileHandler;
+
+import java.io.PrintStream;
 /**
  * Searches the loaded JSON document for every occurrence of a given key
  * and prints the values found.
+ * <p>
+ * {@code --limit <n>} stops the search after the first n values and {@code --first} after the
+ * first one. On the console, each value is printed as soon as it is found.
  */
 
 
@@ -20,19 +25,71 @@ public class Search implements Command {
     /**
      * Executes the <code>search</code> command.
      *
-     * @param args expects exactly one argument—the key to search for
+     * @param args the key to search for, optionally with {@code --limit <n>} or {@code --first}
      * @return formatted list of values, or a not-found / error message
      */
     @Override
     public String execute(String[] args) {
+        StringBuilder sb = new StringBuilder();
+        String error = search(args, sb);
+        return error != null ? error : sb.toString();
+    }
+
+    /**
+     * Executes the <code>search</code> command, printing each value as soon as it is found.
+     *
+     * @param args the key to search for, optionally with {@code --limit <n>} or {@code --first}
+     * @param out  console the values are printed to
+     */
+    @Override
+    public void execute(String[] args, PrintStream out) {
+        String error = search(args, out);
+        out.println(error != null ? error : "");
+    }
 
-        if(args.length!=1)
+    /**
+     * @return an error message if the arguments are invalid, otherwise {@code null} once the
+     *         values or the not-found message are written to {@code out}
+     */
+    private String search(String[] args, Appendable out) {
+
+        String key = null;
+        Integer limit = null;
+        boolean first = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--first":
+                    first = true;
+                    break;
+                case "--limit":
+                    if (i + 1 == args.length)
+                        return "Missing value for --limit";
+                    try {
+                        limit = Integer.parseInt(args[++i]);
+                    } catch (NumberFormatException ex) {
+                        return "Invalid limit " + args[i];
+                    }
+                    if (limit < 1)
+                        return "Invalid limit " + args[i];
+                    break;
+                default:
+                    if (args[i].startsWith("--"))
+                        return "Unknown option " + args[i];
+                    if (key != null)
+                        return "Incorrect argument count";
+                    key = args[i];
+                    break;
+            }
+        }
+
+        if(key == null)
         {
             return "Incorrect argument count";
         }
+        if (first && limit != null)
+            return "--first and --limit cannot be combined";
 
-
-
-        return jsonFileHandler.search(args[0]);
+        jsonFileHandler.search(key, first ? 1 : limit != null ? limit : Integer.MAX_VALUE, out);
+        return null;
     }
 }
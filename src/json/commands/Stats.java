@@ -0,0 +1,29 @@
+package src.json.commands;
+
+import src.json.JsonFileHandler;
+
+/**
+ * Reports how the loaded document is held in memory, e.g. how well member names were interned.
+ */
+public class Stats implements Command {
+
+    private JsonFileHandler jsonFileHandler;
+
+    public Stats(JsonFileHandler jsonFileHandler) {
+        this.jsonFileHandler = jsonFileHandler;
+    }
+
+    /**
+     * Prints the statistics of the current document.
+     *
+     * @param args expects no arguments
+     * @return one line per statistic or an error message
+     */
+    @Override
+    public String execute(String[] args) {
+        if(args.length != 0)
+            return "Incorrect argument count";
+
+        return jsonFileHandler.getStatistics();
+    }
+}
@@ -0,0 +1,29 @@
+package src.json.commands;
+
+import src.json.JsonFileHandler;
+
+/**
+ * Reverts the most recent edit made by {@code set}, {@code remove}, {@code move} or {@code create}.
+ */
+public class Undo implements Command {
+
+    private JsonFileHandler jsonFileHandler;
+
+    public Undo(JsonFileHandler jsonFileHandler) {
+        this.jsonFileHandler = jsonFileHandler;
+    }
+
+    /**
+     * Undoes one edit.
+     *
+     * @param args expects no arguments
+     * @return the edit that was undone or an error message
+     */
+    @Override
+    public String execute(String[] args) {
+        if(args.length != 0)
+            return "Incorrect argument count";
+
+        return jsonFileHandler.undo();
+    }
+}
@@ -22,19 +22,45 @@ public class Validate implements Command {
     /**
      * Executes the <code>validate</code> command.
      *
-     * @param args expects no arguments
+     * @param args no arguments, or {@code --lazy} to index the document instead of building the full
+     *             tree, or {@code --index} to also build an index of member names for {@code search};
+     *             {@code --lazy} needs the text of the file in memory, so it is refused for JSON Lines
+     *             and memory-mapped files
      * @return validation result (“Json is valid” or an error message)
      */
     @Override
     public String execute(String[] args) {
 
-        if(args.length != 0)
+        if(args.length > 2)
             return "Incorrect argument count";
 
+        boolean lazy = false;
+        boolean index = false;
+        for (String arg : args) {
+            if (arg.equals("--lazy"))
+                lazy = true;
+            else if (arg.equals("--index"))
+                index = true;
+            else
+                return "Unknown option " + arg;
+        }
+        if (lazy && index)
+            return "--lazy and --index cannot be combined";
+        if (lazy && fileHandler.isJsonLines())
+            return "--lazy is not supported for JSON Lines files";
+        if (lazy && fileHandler.isMapped())
+            return "--lazy is not supported for memory-mapped files";
 
+        String result;
+        if(fileHandler.isJsonLines())
+            result = jsonFileHandler.validateLines(fileHandler.openReader());
+        else if(fileHandler.isMapped())
+            result = jsonFileHandler.validate(fileHandler::openReader);
+        else
+            result = jsonFileHandler.validate(fileHandler.getRawText(), lazy);
 
-
-
-       return jsonFileHandler.validate(fileHandler.getRawText());
+        if (index && result.startsWith("Json is valid"))
+            result += "\n" + jsonFileHandler.buildKeyIndex();
+        return result;
     }
 }
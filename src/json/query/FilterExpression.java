@@ -0,0 +1,207 @@
+package src.json.query;
+
+import src.json.types.JsonBoolean;
+import src.json.types.JsonElement;
+import src.json.types.JsonFormat;
+import src.json.types.JsonNull;
+import src.json.types.JsonNumber;
+import src.json.types.JsonString;
+
+/**
+ * Condition of a filter selector, evaluated against each candidate child, which the expression
+ * refers to as {@code @}.
+ */
+abstract class FilterExpression {
+
+    /**
+     * @param current the candidate value
+     * @return {@code true} if the candidate is selected
+     */
+    abstract boolean test(JsonElement current);
+
+    /**
+     * A value in an expression: a path below {@code @} or a literal.
+     */
+    abstract static class Operand {
+        /**
+         * @return the value, or {@code null} if a path does not exist
+         */
+        abstract JsonElement resolve(JsonElement current);
+    }
+
+    /**
+     * {@code @}, optionally followed by member names and array indices.
+     */
+    static final class RelativePath extends Operand {
+        /** Member names, with {@code null} where {@link #indices} holds an array index. */
+        private final String[] keys;
+        private final int[] indices;
+
+        RelativePath(String[] keys, int[] indices) {
+            this.keys = keys;
+            this.indices = indices;
+        }
+
+        @Override
+        JsonElement resolve(JsonElement current) {
+            for (int i = 0; i < keys.length && current != null; i++) {
+                current = keys[i] != null ? current.member(keys[i]) : current.element(indices[i]);
+            }
+            return current;
+        }
+    }
+
+    static final class Literal extends Operand {
+        private final JsonElement value;
+
+        Literal(JsonElement value) {
+            this.value = value;
+        }
+
+        @Override
+        JsonElement resolve(JsonElement current) {
+            return value;
+        }
+    }
+
+    /**
+     * A lone operand, which holds if the path exists.
+     */
+    static final class Exists extends FilterExpression {
+        private final Operand operand;
+
+        Exists(Operand operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        boolean test(JsonElement current) {
+            return operand.resolve(current) != null;
+        }
+    }
+
+    static final class Not extends FilterExpression {
+        private final FilterExpression operand;
+
+        Not(FilterExpression operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        boolean test(JsonElement current) {
+            return !operand.test(current);
+        }
+    }
+
+    static final class And extends FilterExpression {
+        private final FilterExpression left;
+        private final FilterExpression right;
+
+        And(FilterExpression left, FilterExpression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean test(JsonElement current) {
+            return left.test(current) && right.test(current);
+        }
+    }
+
+    static final class Or extends FilterExpression {
+        private final FilterExpression left;
+        private final FilterExpression right;
+
+        Or(FilterExpression left, FilterExpression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean test(JsonElement current) {
+            return left.test(current) || right.test(current);
+        }
+    }
+
+    /**
+     * {@code ==}, {@code !=}, {@code <}, {@code <=}, {@code >} or {@code >=}.
+     * <p>
+     * Numbers compare by value and strings by their characters; {@code <} and the other orderings
+     * only hold between two numbers or two strings. Values of different types are never equal, and
+     * a path that does not exist equals nothing, so {@code !=} holds for it.
+     */
+    static final class Comparison extends FilterExpression {
+        private final Operand left;
+        private final String operator;
+        private final Operand right;
+
+        Comparison(Operand left, String operator, Operand right) {
+            this.left = left;
+            this.operator = operator;
+            this.right = right;
+        }
+
+        @Override
+        boolean test(JsonElement current) {
+            JsonElement a = left.resolve(current);
+            JsonElement b = right.resolve(current);
+            switch (operator) {
+                case "==":
+                    return equal(a, b);
+                case "!=":
+                    return !equal(a, b);
+                default:
+                    Integer order = order(a, b);
+                    if (order == null)
+                        return false;
+                    switch (operator) {
+                        case "<":
+                            return order < 0;
+                        case "<=":
+                            return order <= 0;
+                        case ">":
+                            return order > 0;
+                        default:
+                            return order >= 0;
+                    }
+            }
+        }
+
+        private static boolean equal(JsonElement a, JsonElement b) {
+            if (a == null || b == null)
+                return false;
+            Integer order = order(a, b);
+            if (order != null)
+                return order == 0;
+            if (a instanceof JsonBoolean && b instanceof JsonBoolean)
+                return ((JsonBoolean) a).getValue().equals(((JsonBoolean) b).getValue());
+            if (a instanceof JsonNull || b instanceof JsonNull)
+                return a instanceof JsonNull && b instanceof JsonNull;
+            if (a.extraNewline().isEmpty() && b.extraNewline().isEmpty())
+                return a.toJson(0, JsonFormat.COMPACT).equals(b.toJson(0, JsonFormat.COMPACT));
+            return false;
+        }
+
+        /**
+         * @return the sign of {@code a - b} for two numbers or two strings, otherwise {@code null}
+         */
+        private static Integer order(JsonElement a, JsonElement b) {
+            if (a instanceof JsonNumber && b instanceof JsonNumber)
+                return compareNumbers((JsonNumber) a, (JsonNumber) b);
+            if (a instanceof JsonString && b instanceof JsonString)
+                return Integer.signum(((JsonString) a).getValue().compareTo(((JsonString) b).getValue()));
+            return null;
+        }
+
+        private static int compareNumbers(JsonNumber a, JsonNumber b) {
+            if (a.isLong() && b.isLong())
+                return Long.compare(a.longValue(), b.longValue());
+            if ((a.isLong() || a.isDouble()) && (b.isLong() || b.isDouble())) {
+                double x = a.doubleValue();
+                double y = b.doubleValue();
+                return x < y ? -1 : x > y ? 1 : 0;
+            }
+            return a.bigDecimalValue().compareTo(b.bigDecimalValue());
+        }
+    }
+}
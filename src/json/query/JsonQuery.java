@@ -0,0 +1,65 @@
+package src.json.query;
+
+import src.exception.InvalidJsonPathException;
+import src.json.types.JsonElement;
+import src.json.types.JsonSink;
+
+/**
+ * A compiled JSONPath query.
+ * <p>
+ * Supported syntax, starting from the root {@code $}, which may be left out:
+ * <ul>
+ *     <li>{@code .name} and {@code ['name']}: a member of an object</li>
+ *     <li>{@code [n]}: an array element, counted from the end if negative</li>
+ *     <li>{@code [start:end:step]}: a slice of an array, each part optional</li>
+ *     <li>{@code .*} and {@code [*]}: every member or element</li>
+ *     <li>{@code ..}: applies the following name, wildcard or brackets at every level below</li>
+ *     <li>{@code [a,b,...]}: the union of several selectors</li>
+ *     <li>{@code [?(expression)]}: the children for which the expression holds, e.g.
+ *     {@code [?(@.price > 10 && @.tags)]}</li>
+ * </ul>
+ * The text is compiled once into a chain of segments. Evaluation walks the document depth-first
+ * and hands every match to a {@link JsonSink} as soon as it is found, so no intermediate results
+ * are collected and the sink can stop the walk early.
+ */
+public final class JsonQuery {
+    private final String text;
+    /** First segment, or {@code null} if the query selects the root itself. */
+    private final Segment first;
+
+    private JsonQuery(String text, Segment first) {
+        this.text = text;
+        this.first = first;
+    }
+
+    /**
+     * @param text the query, e.g. {@code $.store.book[?(@.price < 10)].title}
+     * @return the compiled query
+     * @throws InvalidJsonPathException if the text is not a valid query
+     */
+    public static JsonQuery compile(String text) {
+        String trimmed = text.trim();
+        if (trimmed.isEmpty())
+            throw new InvalidJsonPathException("Empty query");
+        return new JsonQuery(trimmed, new QueryParser(trimmed).parse());
+    }
+
+    /**
+     * Passes every match below {@code root} to {@code sink}, in the order the query produces them.
+     *
+     * @param root document to query
+     * @param sink receiver of the matches
+     * @return {@code false} if the sink stopped the evaluation
+     */
+    public boolean evaluate(JsonElement root, JsonSink sink) {
+        return first == null ? sink.accept(root) : first.apply(root, sink);
+    }
+
+    /**
+     * @return the text the query was compiled from
+     */
+    @Override
+    public String toString() {
+        return text;
+    }
+}
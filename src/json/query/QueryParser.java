@@ -0,0 +1,349 @@
+package src.json.query;
+
+import src.exception.InvalidJsonPathException;
+import src.json.types.JsonBoolean;
+import src.json.types.JsonElement;
+import src.json.types.JsonNull;
+import src.json.types.JsonNumber;
+import src.json.types.JsonString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recursive-descent parser turning the text of a query into its chain of {@link Segment}s.
+ */
+final class QueryParser {
+    private final String text;
+    private int pos;
+
+    QueryParser(String text) {
+        this.text = text;
+    }
+
+    /**
+     * @return the first segment, or {@code null} for a query that selects the root
+     * @throws InvalidJsonPathException if the text is not a valid query
+     */
+    Segment parse() {
+        List<Segment> segments = new ArrayList<>();
+        if (peek() == '$')
+            pos++;
+        else if (pos < text.length() && peek() != '.' && peek() != '[')
+            segments.add(single(new Selector.Name(name()), false));
+
+        while (pos < text.length()) {
+            char c = peek();
+            if (c == '.') {
+                pos++;
+                boolean descendants = peek() == '.';
+                if (descendants)
+                    pos++;
+                if (descendants && peek() == '[')
+                    segments.add(new Segment(bracket(), true));
+                else if (peek() == '*') {
+                    pos++;
+                    segments.add(single(new Selector.Wildcard(), descendants));
+                } else
+                    segments.add(single(new Selector.Name(name()), descendants));
+            } else if (c == '[') {
+                segments.add(new Segment(bracket(), false));
+            } else {
+                throw error("Unexpected '" + c + "'");
+            }
+        }
+
+        for (int i = 1; i < segments.size(); i++) {
+            segments.get(i - 1).next = segments.get(i);
+        }
+        return segments.isEmpty() ? null : segments.get(0);
+    }
+
+    private static Segment single(Selector selector, boolean descendants) {
+        return new Segment(new Selector[]{selector}, descendants);
+    }
+
+    /**
+     * A member name after a dot, ending at the next dot or bracket as in the paths of the other
+     * commands.
+     */
+    private String name() {
+        int start = pos;
+        while (pos < text.length() && peek() != '.' && peek() != '[') {
+            pos++;
+        }
+        if (pos == start)
+            throw error("Missing member name");
+        return text.substring(start, pos);
+    }
+
+    /**
+     * The selectors of {@code [...]}, separated by commas.
+     */
+    private Selector[] bracket() {
+        pos++;
+        List<Selector> selectors = new ArrayList<>();
+        while (true) {
+            skipSpaces();
+            selectors.add(selector());
+            skipSpaces();
+            if (peek() == ',') {
+                pos++;
+            } else if (peek() == ']') {
+                pos++;
+                return selectors.toArray(new Selector[0]);
+            } else {
+                throw error("Expected ',' or ']'");
+            }
+        }
+    }
+
+    private Selector selector() {
+        char c = peek();
+        if (c == '*') {
+            pos++;
+            return new Selector.Wildcard();
+        }
+        if (c == '?') {
+            pos++;
+            return new Selector.Filter(or());
+        }
+        if (isQuote(c))
+            return new Selector.Name(quoted());
+        if (c == '-' || c == ':' || isDigit(c))
+            return indexOrSlice();
+        throw error("Expected a selector");
+    }
+
+    private Selector indexOrSlice() {
+        Integer start = optionalInteger();
+        skipSpaces();
+        if (peek() != ':') {
+            if (start == null)
+                throw error("Expected an index");
+            return new Selector.Index(start);
+        }
+
+        pos++;
+        skipSpaces();
+        Integer end = optionalInteger();
+        skipSpaces();
+        int step = 1;
+        if (peek() == ':') {
+            pos++;
+            skipSpaces();
+            Integer value = optionalInteger();
+            if (value != null)
+                step = value;
+        }
+        return new Selector.Slice(start, end, step);
+    }
+
+    private Integer optionalInteger() {
+        int start = pos;
+        if (peek() == '-')
+            pos++;
+        while (isDigit(peek())) {
+            pos++;
+        }
+        if (pos == start)
+            return null;
+        try {
+            return Integer.parseInt(text.substring(start, pos));
+        } catch (NumberFormatException ex) {
+            throw error("Invalid index " + text.substring(start, pos));
+        }
+    }
+
+    /**
+     * A string in single or double quotes. Either quote character ends it, since the command line
+     * turns single quotes into double ones in the last argument only; a backslash keeps a quote
+     * in the string. Other escapes are kept as written, the way string values are stored.
+     */
+    private String quoted() {
+        pos++;
+        StringBuilder sb = new StringBuilder();
+        while (pos < text.length() && !isQuote(peek())) {
+            char c = text.charAt(pos++);
+            if (c == '\\' && isQuote(peek()))
+                c = text.charAt(pos++);
+            sb.append(c);
+        }
+        if (pos == text.length())
+            throw error("Unterminated string");
+        pos++;
+        return sb.toString();
+    }
+
+    private FilterExpression or() {
+        FilterExpression left = and();
+        while (skipSpaces() && text.startsWith("||", pos)) {
+            pos += 2;
+            left = new FilterExpression.Or(left, and());
+        }
+        return left;
+    }
+
+    private FilterExpression and() {
+        FilterExpression left = unary();
+        while (skipSpaces() && text.startsWith("&&", pos)) {
+            pos += 2;
+            left = new FilterExpression.And(left, unary());
+        }
+        return left;
+    }
+
+    private FilterExpression unary() {
+        skipSpaces();
+        if (peek() == '!' && !text.startsWith("!=", pos)) {
+            pos++;
+            return new FilterExpression.Not(unary());
+        }
+        if (peek() == '(') {
+            pos++;
+            FilterExpression inner = or();
+            skipSpaces();
+            if (peek() != ')')
+                throw error("Expected ')'");
+            pos++;
+            return inner;
+        }
+
+        FilterExpression.Operand left = operand();
+        skipSpaces();
+        String operator = operator();
+        if (operator == null)
+            return new FilterExpression.Exists(left);
+        skipSpaces();
+        return new FilterExpression.Comparison(left, operator, operand());
+    }
+
+    private String operator() {
+        for (String operator : new String[]{"==", "!=", "<=", ">=", "<", ">"}) {
+            if (text.startsWith(operator, pos)) {
+                pos += operator.length();
+                return operator;
+            }
+        }
+        return null;
+    }
+
+    private FilterExpression.Operand operand() {
+        char c = peek();
+        if (c == '@') {
+            pos++;
+            return relativePath();
+        }
+        if (isQuote(c))
+            return new FilterExpression.Literal(new JsonString(quoted()));
+        if (c == '-' || isDigit(c))
+            return new FilterExpression.Literal(number());
+        for (String word : new String[]{"true", "false", "null"}) {
+            if (text.startsWith(word, pos)) {
+                pos += word.length();
+                JsonElement value = word.equals("null") ? JsonNull.INSTANCE : new JsonBoolean(word.equals("true"));
+                return new FilterExpression.Literal(value);
+            }
+        }
+        throw error("Expected '@' or a literal");
+    }
+
+    /**
+     * The members and indices following {@code @}.
+     */
+    private FilterExpression.Operand relativePath() {
+        List<String> keys = new ArrayList<>();
+        List<Integer> indices = new ArrayList<>();
+        while (true) {
+            if (peek() == '.') {
+                pos++;
+                int start = pos;
+                while (pos < text.length() && isNameChar(peek())) {
+                    pos++;
+                }
+                if (pos == start)
+                    throw error("Missing member name");
+                keys.add(text.substring(start, pos));
+                indices.add(-1);
+            } else if (peek() == '[') {
+                pos++;
+                skipSpaces();
+                if (isQuote(peek())) {
+                    keys.add(quoted());
+                    indices.add(-1);
+                } else {
+                    Integer index = optionalInteger();
+                    if (index == null || index < 0)
+                        throw error("Expected an index");
+                    keys.add(null);
+                    indices.add(index);
+                }
+                skipSpaces();
+                if (peek() != ']')
+                    throw error("Expected ']'");
+                pos++;
+            } else {
+                break;
+            }
+        }
+
+        int[] decoded = new int[indices.size()];
+        for (int i = 0; i < decoded.length; i++) {
+            decoded[i] = indices.get(i);
+        }
+        return new FilterExpression.RelativePath(keys.toArray(new String[0]), decoded);
+    }
+
+    private JsonNumber number() {
+        int start = pos;
+        if (peek() == '-')
+            pos++;
+        while (isDigit(peek()) || peek() == '.' || peek() == 'e' || peek() == 'E'
+                || ((peek() == '+' || peek() == '-') && (text.charAt(pos - 1) == 'e' || text.charAt(pos - 1) == 'E'))) {
+            pos++;
+        }
+        String literal = text.substring(start, pos);
+        try {
+            return new JsonNumber(Long.parseLong(literal));
+        } catch (NumberFormatException ex) {
+            try {
+                return new JsonNumber(Double.parseDouble(literal));
+            } catch (NumberFormatException notNumber) {
+                throw error("Invalid number " + literal);
+            }
+        }
+    }
+
+    private static boolean isNameChar(char c) {
+        return !Character.isWhitespace(c) && ".[]()=!<>&|,".indexOf(c) < 0;
+    }
+
+    private static boolean isQuote(char c) {
+        return c == '\'' || c == '"';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * @return {@code true}, so it can lead a loop condition
+     */
+    private boolean skipSpaces() {
+        while (pos < text.length() && Character.isWhitespace(peek())) {
+            pos++;
+        }
+        return true;
+    }
+
+    /**
+     * @return the character at the current position, or 0 at the end
+     */
+    private char peek() {
+        return pos < text.length() ? text.charAt(pos) : 0;
+    }
+
+    private InvalidJsonPathException error(String message) {
+        return new InvalidJsonPathException("Invalid query at position " + (pos + 1) + ": " + message);
+    }
+}
@@ -0,0 +1,46 @@
+package src.json.query;
+
+import src.json.types.JsonElement;
+import src.json.types.JsonSink;
+
+/**
+ * One step of a compiled query: a set of selectors applied to the current value, or with
+ * {@code ..} to the current value and all of its descendants. Each selected value is handed
+ * straight to the next segment, so a query runs depth-first without collecting intermediate
+ * results.
+ */
+final class Segment {
+    private final Selector[] selectors;
+    private final boolean descendants;
+    /** Segment receiving the selected values, or {@code null} for the last one. */
+    Segment next;
+
+    Segment(Selector[] selectors, boolean descendants) {
+        this.selectors = selectors;
+        this.descendants = descendants;
+    }
+
+    /**
+     * Applies the segment to {@code node} and passes every selected value on.
+     *
+     * @return {@code false} if the sink stopped the evaluation
+     */
+    boolean apply(JsonElement node, JsonSink sink) {
+        for (Selector selector : selectors) {
+            if (!selector.select(node, this, sink))
+                return false;
+        }
+        if (!descendants)
+            return true;
+        return node.forEachChild((key, index, child) -> apply(child, sink));
+    }
+
+    /**
+     * Passes a selected value to the rest of the query, or to the sink after the last segment.
+     *
+     * @return {@code false} if the sink stopped the evaluation
+     */
+    boolean emit(JsonElement value, JsonSink sink) {
+        return next == null ? sink.accept(value) : next.apply(value, sink);
+    }
+}
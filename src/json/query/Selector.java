@@ -0,0 +1,134 @@
+package src.json.query;
+
+import src.json.types.JsonElement;
+import src.json.types.JsonSink;
+
+/**
+ * Chooses values below the current one: a member by name, an element by index, a slice of an
+ * array, every child, or the children accepted by a filter.
+ */
+abstract class Selector {
+
+    /**
+     * Passes the values this selector chooses below {@code node} to {@code segment}.
+     *
+     * @param node    current value
+     * @param segment segment the selector belongs to
+     * @param sink    receiver of the matches of the whole query
+     * @return {@code false} if the sink stopped the evaluation
+     */
+    abstract boolean select(JsonElement node, Segment segment, JsonSink sink);
+
+    /**
+     * {@code .name} or {@code ['name']}.
+     */
+    static final class Name extends Selector {
+        private final String key;
+
+        Name(String key) {
+            this.key = key;
+        }
+
+        @Override
+        boolean select(JsonElement node, Segment segment, JsonSink sink) {
+            JsonElement value = node.member(key);
+            return value == null || segment.emit(value, sink);
+        }
+    }
+
+    /**
+     * {@code *}: every member of an object or element of an array.
+     */
+    static final class Wildcard extends Selector {
+        @Override
+        boolean select(JsonElement node, Segment segment, JsonSink sink) {
+            return node.forEachChild((key, index, child) -> segment.emit(child, sink));
+        }
+    }
+
+    /**
+     * {@code [n]}; a negative index counts from the end of the array.
+     */
+    static final class Index extends Selector {
+        private final int index;
+
+        Index(int index) {
+            this.index = index;
+        }
+
+        @Override
+        boolean select(JsonElement node, Segment segment, JsonSink sink) {
+            JsonElement value = node.element(index >= 0 ? index : node.size() + index);
+            return value == null || segment.emit(value, sink);
+        }
+    }
+
+    /**
+     * {@code [start:end:step]} with Python semantics: bounds may be negative or left out, and a
+     * negative step walks the array backwards.
+     */
+    static final class Slice extends Selector {
+        private final Integer start;
+        private final Integer end;
+        private final int step;
+
+        Slice(Integer start, Integer end, int step) {
+            this.start = start;
+            this.end = end;
+            this.step = step;
+        }
+
+        @Override
+        boolean select(JsonElement node, Segment segment, JsonSink sink) {
+            if (step == 0 || node.element(0) == null)
+                return true;
+
+            int length = node.size();
+            if (step > 0) {
+                int lower = start == null ? 0 : clamp(start, length, 0, length);
+                int upper = end == null ? length : clamp(end, length, 0, length);
+                // The elements are walked in order so that lazy arrays are not searched from the start for each one.
+                boolean[] stopped = new boolean[1];
+                node.forEachChild((key, index, child) -> {
+                    if (index >= upper)
+                        return false;
+                    if (index >= lower && (index - lower) % step == 0 && !segment.emit(child, sink)) {
+                        stopped[0] = true;
+                        return false;
+                    }
+                    return true;
+                });
+                return !stopped[0];
+            }
+
+            int upper = start == null ? length - 1 : clamp(start, length, -1, length - 1);
+            int lower = end == null ? -1 : clamp(end, length, -1, length - 1);
+            for (int i = upper; i > lower; i += step) {
+                if (!segment.emit(node.element(i), sink))
+                    return false;
+            }
+            return true;
+        }
+
+        private static int clamp(int bound, int length, int min, int max) {
+            int normalized = bound >= 0 ? bound : length + bound;
+            return Math.max(min, Math.min(max, normalized));
+        }
+    }
+
+    /**
+     * {@code [?(expression)]}: the children for which the expression holds.
+     */
+    static final class Filter extends Selector {
+        private final FilterExpression expression;
+
+        Filter(FilterExpression expression) {
+            this.expression = expression;
+        }
+
+        @Override
+        boolean select(JsonElement node, Segment segment, JsonSink sink) {
+            return node.forEachChild((key, index, child) -> !expression.test(child) || segment.emit(child, sink));
+        }
+    }
+}
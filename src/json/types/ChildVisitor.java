@@ -0,0 +1,17 @@
+package src.json.types;
+
+/**
+ * Receives the members of an object or the elements of an array from
+ * {@link JsonElement#forEachChild(ChildVisitor)}.
+ */
+@FunctionalInterface
+public interface ChildVisitor {
+
+    /**
+     * @param key   member name, or {@code null} for an array element
+     * @param index position of the member or element
+     * @param value the member's value or the element
+     * @return {@code false} to stop the walk
+     */
+    boolean visit(String key, int index, JsonElement value);
+}
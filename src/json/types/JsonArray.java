@@ -3,28 +3,164 @@ package src.json.types;
 import src.exception.InvalidJsonPathException;
 import src.exception.NotFoundException;
 
+import java.io.IOException;
 import java.util.*;
 
 /**
  * Represents a JSON array, holding an ordered list of {@code JsonElement}s.
+ * <p>
+ * An array whose elements are all whole numbers, all floating-point numbers or all booleans is
+ * stored packed in a {@code long[]}, {@code double[]} or {@code boolean[]} rather than as a list of
+ * element objects. The layout is chosen by the first element added and kept for as long as
+ * further elements match it; {@link #get(int)} creates an element for a packed value only when
+ * asked.
+ * <p>
+ * An array of at least {@link #COLUMNAR_THRESHOLD} objects that all have the same keys in the same
+ * order is stored by column: the keys are kept once and each member is kept in its own array, which
+ * is packed in turn when its values allow it. {@link #get(int)} then returns a {@link JsonRow}
+ * view of one object.
+ * <p>
+ * Adding or setting an element that does not fit the current layout moves the array to the
+ * general layout, which is invisible to callers.
  */
 public class JsonArray extends JsonComposite {
-    private final List<JsonElement> elements;
+    /** Arrays of at least this many objects with identical keys are stored by column. */
+    static final int COLUMNAR_THRESHOLD = 16;
+
+    private static final byte GENERAL = 0;
+    private static final byte LONGS = 1;
+    private static final byte DOUBLES = 2;
+    private static final byte BOOLEANS = 3;
+    private static final byte COLUMNS = 4;
+
+    /** Layout of the array; an empty array is {@link #GENERAL} with no list yet. */
+    private byte layout = GENERAL;
+
+    /** Elements in the general layout, or {@code null}. */
+    private List<JsonElement> elements;
+
+    private long[] longs;
+    private double[] doubles;
+    private boolean[] booleans;
+
+    /** Keys shared by every object of a columnar array, in member order. */
+    private String[] schema;
+    /** One array per key of {@link #schema}, holding that member of every object. */
+    private JsonArray[] columns;
+
+    /** Number of packed values or columnar rows. */
+    private int packedSize;
 
     /**
-     * Constructs a {@code JsonArray} from an existing list.
+     * Constructs a {@code JsonArray} from an existing list. A list of matching primitives or of
+     * identically shaped objects is converted to the matching layout; otherwise the list itself
+     * becomes the backing store.
      *
      * @param elements the initial list of elements
      */
     public JsonArray(List<JsonElement> elements) {
-        this.elements = elements;
+        byte packable = elements.isEmpty() ? GENERAL : layoutOf(elements.get(0));
+        for (int i = 1; i < elements.size() && packable != GENERAL; i++) {
+            if (layoutOf(elements.get(i)) != packable)
+                packable = GENERAL;
+        }
+
+        if (packable != GENERAL) {
+            for (JsonElement element : elements) {
+                add(element);
+            }
+            trimToSize();
+        } else if (elements.size() >= COLUMNAR_THRESHOLD && sameShape(elements)) {
+            toColumns(elements);
+            trimToSize();
+        } else {
+            this.elements = elements;
+        }
     }
 
     /**
      * Constructs an empty {@code JsonArray}.
      */
     public JsonArray() {
-        elements = new ArrayList<>();
+    }
+
+    /**
+     * @return the packed layout that can hold {@code element}, or {@link #GENERAL}
+     */
+    private static byte layoutOf(JsonElement element) {
+        if (element instanceof JsonNumber) {
+            JsonNumber number = (JsonNumber) element;
+            return number.isLong() ? LONGS : number.isDouble() ? DOUBLES : GENERAL;
+        }
+        return element instanceof JsonBoolean ? BOOLEANS : GENERAL;
+    }
+
+    /**
+     * @return {@code true} if every element is an object with the keys of the first, in the same order
+     */
+    private static boolean sameShape(List<JsonElement> candidates) {
+        if (!(candidates.get(0) instanceof JsonObject))
+            return false;
+        JsonObject first = (JsonObject) candidates.get(0);
+        for (int i = 1; i < candidates.size(); i++) {
+            JsonElement candidate = candidates.get(i);
+            if (!(candidate instanceof JsonObject) || !sameKeys(first, (JsonObject) candidate))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean sameKeys(JsonObject a, JsonObject b) {
+        if (a.size() != b.size())
+            return false;
+        for (int i = 0; i < a.size(); i++) {
+            String key = a.keyAt(i);
+            if (key != b.keyAt(i) && !key.equals(b.keyAt(i)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return {@code true} if {@code element} is an object that can be stored as a row of this columnar array
+     */
+    private boolean fitsSchema(JsonElement element) {
+        if (!(element instanceof JsonObject))
+            return false;
+        JsonObject object = (JsonObject) element;
+        if (object.size() != schema.length)
+            return false;
+        for (int c = 0; c < schema.length; c++) {
+            if (schema[c] != object.keyAt(c) && !schema[c].equals(object.keyAt(c)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Switches a list of identically shaped objects to the columnar layout.
+     */
+    private void toColumns(List<JsonElement> objects) {
+        JsonObject first = (JsonObject) objects.get(0);
+        schema = new String[first.size()];
+        columns = new JsonArray[first.size()];
+        for (int c = 0; c < schema.length; c++) {
+            schema[c] = first.keyAt(c);
+            columns[c] = new JsonArray();
+        }
+        layout = COLUMNS;
+        elements = null;
+        packedSize = 0;
+        for (JsonElement object : objects) {
+            appendRow((JsonObject) object);
+        }
+    }
+
+    private void appendRow(JsonObject object) {
+        for (int c = 0; c < columns.length; c++) {
+            columns[c].add(object.valueAt(c));
+        }
+        packedSize++;
     }
 
     /**
@@ -33,24 +169,124 @@ public class JsonArray extends JsonComposite {
      * @param element the element to add
      */
     public void add(JsonElement element) {
+        invalidateKeyFilter();
+        if (layout == GENERAL) {
+            if (elements == null) {
+                layout = layoutOf(element);
+                if (layout == GENERAL)
+                    elements = new ArrayList<>();
+            }
+            if (layout == GENERAL) {
+                elements.add(element);
+                if (elements.size() == COLUMNAR_THRESHOLD && sameShape(elements))
+                    toColumns(elements);
+                return;
+            }
+        }
+
+        if (layout == COLUMNS) {
+            if (fitsSchema(element)) {
+                appendRow((JsonObject) element);
+                return;
+            }
+        } else if (layoutOf(element) == layout) {
+            ensureCapacity(packedSize + 1);
+            store(packedSize++, element);
+            return;
+        }
+
+        generalize();
         elements.add(element);
     }
 
+    /**
+     * Inserts an element, shifting the element at {@code index} and those after it up by one.
+     *
+     * @param index the position of the new element, at most {@link #size()}
+     * @param element the element to insert
+     * @throws IndexOutOfBoundsException if {@code index} is out of range
+     */
+    public void add(int index, JsonElement element) {
+        invalidateKeyFilter();
+        if (index == size()) {
+            add(element);
+            return;
+        }
+        Objects.checkIndex(index, size());
+
+        if (layout == COLUMNS) {
+            if (fitsSchema(element)) {
+                JsonObject object = (JsonObject) element;
+                for (int c = 0; c < columns.length; c++) {
+                    columns[c].add(index, object.valueAt(c));
+                }
+                packedSize++;
+                return;
+            }
+        } else if (layout != GENERAL && layoutOf(element) == layout) {
+            ensureCapacity(packedSize + 1);
+            Object packed = layout == LONGS ? longs : layout == DOUBLES ? doubles : booleans;
+            System.arraycopy(packed, index, packed, index + 1, packedSize - index);
+            store(index, element);
+            packedSize++;
+            return;
+        }
+
+        generalize();
+        elements.add(index, element);
+    }
+
     /**
      * Retrieves the element at a given index.
      *
      * @param index the index to access
      * @return the {@code JsonElement} at that index
+     * @throws IndexOutOfBoundsException if {@code index} is out of range
      */
     public JsonElement get(int index) {
-        return elements.get(index);
+        if (layout == GENERAL) {
+            if (elements == null)
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length 0");
+            return elements.get(index);
+        }
+
+        Objects.checkIndex(index, packedSize);
+        switch (layout) {
+            case LONGS:
+                return new JsonNumber(longs[index]);
+            case DOUBLES:
+                return new JsonNumber(doubles[index]);
+            case BOOLEANS:
+                return new JsonBoolean(booleans[index]);
+            default:
+                return new JsonRow(this, index);
+        }
+    }
+
+    @Override
+    public JsonElement element(int index) {
+        return index >= 0 && index < size() ? get(index) : null;
+    }
+
+    /**
+     * Packed values and rows are passed as elements created for the visit, as {@link #get(int)}
+     * returns them.
+     */
+    @Override
+    public boolean forEachChild(ChildVisitor visitor) {
+        int size = size();
+        for (int i = 0; i < size; i++) {
+            if (!visitor.visit(null, i, layout == GENERAL ? elements.get(i) : get(i)))
+                return false;
+        }
+        return true;
     }
 
     /**
      * @return true if the array is empty
      */
     public boolean isEmpty() {
-        return elements.isEmpty();
+        return size() == 0;
     }
 
     /**
@@ -59,14 +295,207 @@ public class JsonArray extends JsonComposite {
      * @param other the array to append from
      */
     public void addAll(JsonArray other) {
-        this.elements.addAll(other.elements);
+        invalidateKeyFilter();
+        if (layout == GENERAL && other.layout == GENERAL) {
+            if (other.elements == null)
+                return;
+            if (elements == null)
+                elements = new ArrayList<>();
+            elements.addAll(other.elements);
+            return;
+        }
+        for (int i = 0; i < other.size(); i++) {
+            add(other.get(i));
+        }
     }
 
     /**
      * @return the number of elements in the array
      */
     public int size() {
-        return elements.size();
+        if (layout != GENERAL)
+            return packedSize;
+        return elements == null ? 0 : elements.size();
+    }
+
+    /**
+     * @return {@code true} if the elements are stored in a packed primitive array
+     */
+    public boolean isPacked() {
+        return layout == LONGS || layout == DOUBLES || layout == BOOLEANS;
+    }
+
+    /**
+     * @return {@code true} if the elements are objects stored by column
+     */
+    public boolean isColumnar() {
+        return layout == COLUMNS;
+    }
+
+    /**
+     * Releases unused capacity once the array is complete, e.g. after parsing.
+     */
+    public void trimToSize() {
+        switch (layout) {
+            case LONGS:
+                if (longs.length > packedSize)
+                    longs = Arrays.copyOf(longs, packedSize);
+                break;
+            case DOUBLES:
+                if (doubles.length > packedSize)
+                    doubles = Arrays.copyOf(doubles, packedSize);
+                break;
+            case BOOLEANS:
+                if (booleans.length > packedSize)
+                    booleans = Arrays.copyOf(booleans, packedSize);
+                break;
+            case COLUMNS:
+                for (JsonArray column : columns) {
+                    column.trimToSize();
+                }
+                break;
+            default:
+                if (elements instanceof ArrayList)
+                    ((ArrayList<JsonElement>) elements).trimToSize();
+                break;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        int length = capacity();
+        if (capacity <= length)
+            return;
+
+        int grown = Math.max(capacity, length == 0 ? 4 : length * 2);
+        switch (layout) {
+            case LONGS:
+                longs = longs == null ? new long[grown] : Arrays.copyOf(longs, grown);
+                break;
+            case DOUBLES:
+                doubles = doubles == null ? new double[grown] : Arrays.copyOf(doubles, grown);
+                break;
+            default:
+                booleans = booleans == null ? new boolean[grown] : Arrays.copyOf(booleans, grown);
+                break;
+        }
+    }
+
+    /**
+     * @return length of the packed array in use
+     */
+    private int capacity() {
+        switch (layout) {
+            case LONGS:
+                return longs == null ? 0 : longs.length;
+            case DOUBLES:
+                return doubles == null ? 0 : doubles.length;
+            default:
+                return booleans == null ? 0 : booleans.length;
+        }
+    }
+
+    /**
+     * Writes a value that matches the current packed layout.
+     */
+    private void store(int index, JsonElement element) {
+        switch (layout) {
+            case LONGS:
+                longs[index] = ((JsonNumber) element).longValue();
+                break;
+            case DOUBLES:
+                doubles[index] = ((JsonNumber) element).doubleValue();
+                break;
+            default:
+                booleans[index] = ((JsonBoolean) element).getValue();
+                break;
+        }
+    }
+
+    /**
+     * Moves the array to the general layout, creating an element for every packed value and an
+     * object for every row.
+     */
+    void generalize() {
+        if (layout == GENERAL) {
+            if (elements == null)
+                elements = new ArrayList<>();
+            return;
+        }
+
+        List<JsonElement> general = new ArrayList<>(packedSize + 1);
+        for (int i = 0; i < packedSize; i++) {
+            general.add(layout == COLUMNS ? rowObject(i) : get(i));
+        }
+        layout = GENERAL;
+        elements = general;
+        longs = null;
+        doubles = null;
+        booleans = null;
+        schema = null;
+        columns = null;
+        packedSize = 0;
+    }
+
+    /**
+     * @param key member name
+     * @return position of {@code key} in the schema of a columnar array, or -1
+     */
+    int columnIndex(String key) {
+        for (int c = 0; c < schema.length; c++) {
+            if (schema[c] == key)
+                return c;
+        }
+        for (int c = 0; c < schema.length; c++) {
+            if (schema[c].equals(key))
+                return c;
+        }
+        return -1;
+    }
+
+    /**
+     * @return number of keys of every row of a columnar array
+     */
+    int columnCount() {
+        return schema.length;
+    }
+
+    /**
+     * @param c position in the schema
+     * @return the key at that position
+     */
+    String columnKey(int c) {
+        return schema[c];
+    }
+
+    /**
+     * @return member {@code c} of row {@code row}
+     */
+    JsonElement cell(int row, int c) {
+        return columns[c].get(row);
+    }
+
+    /**
+     * Replaces member {@code c} of row {@code row}.
+     */
+    void setCell(int row, int c, JsonElement value) {
+        columns[c].set(row, value);
+    }
+
+    /**
+     * Builds a regular object for a row. Values are shared with the columns, except that rows of
+     * nested columnar arrays are turned into objects too, so the result stays valid when this
+     * array changes later.
+     *
+     * @param row row index
+     * @return the object
+     */
+    JsonObject rowObject(int row) {
+        JsonObject object = new JsonObject(schema.length);
+        for (int c = 0; c < schema.length; c++) {
+            JsonArray column = columns[c];
+            object.add(schema[c], column.layout == COLUMNS ? column.rowObject(row) : column.get(row));
+        }
+        return object;
     }
 
     /**
@@ -77,12 +506,115 @@ public class JsonArray extends JsonComposite {
     @Override
     public JsonElement deepCopy() {
         JsonArray copy = new JsonArray();
-        for (JsonElement el : elements) {
-            copy.add(el.deepCopy());
+        copy.layout = layout;
+        copy.packedSize = packedSize;
+        switch (layout) {
+            case LONGS:
+                copy.longs = Arrays.copyOf(longs, packedSize);
+                break;
+            case DOUBLES:
+                copy.doubles = Arrays.copyOf(doubles, packedSize);
+                break;
+            case BOOLEANS:
+                copy.booleans = Arrays.copyOf(booleans, packedSize);
+                break;
+            case COLUMNS:
+                copy.schema = schema;
+                copy.columns = new JsonArray[columns.length];
+                for (int c = 0; c < columns.length; c++) {
+                    copy.columns[c] = (JsonArray) columns[c].deepCopy();
+                }
+                break;
+            default:
+                if (elements != null) {
+                    copy.elements = new ArrayList<>(elements.size());
+                    for (JsonElement el : elements) {
+                        copy.elements.add(el.deepCopy());
+                    }
+                }
+                break;
         }
+        copy.copyKeyFilter(this, false);
         return copy;
     }
 
+    /**
+     * Copies the storage of the array, sharing every element except the one on the path. When the
+     * path continues into a member of a columnar row, only the column of that member is copied.
+     */
+    @Override
+    public JsonElement copyPath(JsonPath path, int depth) {
+        if (depth == path.length())
+            return this;
+        return copyPath(path.index(depth), path, depth + 1);
+    }
+
+    /**
+     * @param index element on the path, or -1 if the path does not name one
+     * @param depth position in {@code path} of the segment below that element
+     */
+    private JsonArray copyPath(int index, JsonPath path, int depth) {
+        boolean inRange = index >= 0 && index < size();
+
+        if (layout == COLUMNS && depth < path.length()) {
+            JsonArray copy = createEmpty();
+            copy.layout = COLUMNS;
+            copy.packedSize = packedSize;
+            copy.schema = schema;
+            copy.columns = columns.clone();
+            copy.copyKeyFilter(this, true);
+            int c = inRange ? columnIndex(path.token(depth)) : -1;
+            if (c >= 0)
+                copy.columns[c] = columns[c].copyPath(index, path, depth + 1);
+            return copy;
+        }
+
+        JsonArray copy = shallowCopy();
+        copy.copyKeyFilter(this, true);
+        if (layout == GENERAL && inRange)
+            copy.elements.set(index, elements.get(index).copyPath(path, depth));
+        return copy;
+    }
+
+    /**
+     * @return an array of the same kind whose storage is a copy of this one's; elements are shared,
+     *         and the columns of a columnar array are copied the same way
+     */
+    private JsonArray shallowCopy() {
+        JsonArray copy = createEmpty();
+        copy.layout = layout;
+        copy.packedSize = packedSize;
+        switch (layout) {
+            case LONGS:
+                copy.longs = Arrays.copyOf(longs, packedSize);
+                break;
+            case DOUBLES:
+                copy.doubles = Arrays.copyOf(doubles, packedSize);
+                break;
+            case BOOLEANS:
+                copy.booleans = Arrays.copyOf(booleans, packedSize);
+                break;
+            case COLUMNS:
+                copy.schema = schema;
+                copy.columns = new JsonArray[columns.length];
+                for (int c = 0; c < columns.length; c++) {
+                    copy.columns[c] = columns[c].shallowCopy();
+                }
+                break;
+            default:
+                copy.elements = elements == null ? null : new ArrayList<>(elements);
+                break;
+        }
+        return copy;
+    }
+
+    /**
+     * @return an empty array of the same kind as this one
+     */
+    JsonArray createEmpty() {
+        return new JsonArray();
+    }
+
     /**
      * Replaces the element at the specified index.
      *
@@ -90,6 +622,27 @@ public class JsonArray extends JsonComposite {
      * @param element the new element to set
      */
     public void set(int index, JsonElement element) {
+        invalidateKeyFilter();
+        if (layout == COLUMNS) {
+            Objects.checkIndex(index, packedSize);
+            if (fitsSchema(element)) {
+                JsonObject object = (JsonObject) element;
+                for (int c = 0; c < columns.length; c++) {
+                    columns[c].set(index, object.valueAt(c));
+                }
+                return;
+            }
+            generalize();
+        } else if (layout != GENERAL) {
+            Objects.checkIndex(index, packedSize);
+            if (layoutOf(element) == layout) {
+                store(index, element);
+                return;
+            }
+            generalize();
+        } else if (elements == null) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length 0");
+        }
         elements.set(index, element);
     }
 
@@ -99,7 +652,24 @@ public class JsonArray extends JsonComposite {
      * @param index the position to remove
      */
     public void remove(int index) {
-        elements.remove(index);
+        invalidateKeyFilter();
+        if (layout == GENERAL) {
+            if (elements == null)
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length 0");
+            elements.remove(index);
+            return;
+        }
+
+        Objects.checkIndex(index, packedSize);
+        if (layout == COLUMNS) {
+            for (JsonArray column : columns) {
+                column.remove(index);
+            }
+        } else {
+            Object packed = layout == LONGS ? longs : layout == DOUBLES ? doubles : booleans;
+            System.arraycopy(packed, index + 1, packed, index, packedSize - index - 1);
+        }
+        packedSize--;
     }
 
     /**
@@ -107,62 +677,196 @@ public class JsonArray extends JsonComposite {
      */
     @Override
     public String toString() {
-        return elements.toString();
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size(); i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append(get(i));
+        }
+        return sb.append(']').toString();
     }
 
-    public String toJson(int indent) {
-        StringBuilder sb = new StringBuilder();
-        String padding = "\t".repeat(Math.max(0, indent));
-        String biggerPadding =  "\t".repeat(indent+1);
-
-        sb.append("\n").append(padding).append("[");
+    @Override
+    public void write(JsonWriter writer, int indent) throws IOException {
+        writer.beginArray(indent);
+
+        int size = size();
+        for (int i = 0; i < size; i++) {
+            if (layout == GENERAL)
+                writer.beginElement(elements.get(i), indent);
+            else
+                writer.beginElement(layout != COLUMNS, indent);
+            writeValue(i, writer, indent + 1);
+            writer.endElement(i == size - 1);
+        }
+        writer.endArray(indent);
+    }
 
-        int i=0;
-        for (JsonElement el : elements) {
+    /**
+     * Writes element {@code i} without creating an element object for packed values or rows.
+     */
+    private void writeValue(int i, JsonWriter writer, int indent) throws IOException {
+        switch (layout) {
+            case LONGS:
+                writer.literal(Long.toString(longs[i]));
+                break;
+            case DOUBLES:
+                writer.literal(Double.toString(doubles[i]));
+                break;
+            case BOOLEANS:
+                writer.literal(booleans[i] ? "true" : "false");
+                break;
+            case COLUMNS:
+                writeRow(i, writer, indent);
+                break;
+            default:
+                elements.get(i).write(writer, indent);
+                break;
+        }
+    }
 
+    /**
+     * Writes row {@code row} of a columnar array as an object.
+     */
+    void writeRow(int row, JsonWriter writer, int indent) throws IOException {
+        writer.beginObject(indent);
+        for (int c = 0; c < schema.length; c++) {
+            writer.name(schema[c], indent);
+            columns[c].writeValue(row, writer, indent + 1);
+            writer.endMember(c == schema.length - 1);
+        }
+        writer.endObject(indent);
+    }
 
-            sb.append(el.extraNewline());
-            sb.append(biggerPadding);
-            sb.append(el.toJson(indent+1));
-            if(i != elements.size()-1) sb.append(",");
+    /**
+     * Searches a columnar array column by column where possible. When at most one column can
+     * produce matches, namely the column of {@code key} itself or a single column holding nested
+     * objects, the matches are that column's values or its own matches, in row order.
+     * Otherwise rows are visited one by one so matches keep their document order.
+     */
+    @Override
+    public boolean search(String key, JsonSink sink) {
+        if (!mayContainKey(key))
+            return true;
+
+        if (layout == COLUMNS) {
+            int match = columnIndex(key);
+            int sources = match >= 0 ? 1 : 0;
+            int nested = -1;
+            for (int c = 0; c < columns.length; c++) {
+                if (columns[c].mayContainKeys()) {
+                    sources++;
+                    nested = c;
+                }
+            }
 
+            if (sources == 1 && match >= 0) {
+                for (int row = 0; row < packedSize; row++) {
+                    if (!sink.accept(columns[match].get(row)))
+                        return false;
+                }
+            } else if (sources == 1) {
+                return columns[nested].search(key, sink);
+            } else if (sources > 1) {
+                for (int row = 0; row < packedSize; row++) {
+                    if (!searchRow(row, key, sink))
+                        return false;
+                }
+            }
+            return true;
+        }
+        if (layout != GENERAL || elements == null)
+            return true;
 
-            i++;
+        for (JsonElement el : elements) {
+            if (!el.search(key, sink))
+                return false;
         }
-        sb.append("\n").append(padding).append("]");
+        return true;
+    }
 
-        return sb.toString();
+    /**
+     * Passes the matches for {@code key} within row {@code row} of a columnar array to {@code sink}.
+     *
+     * @return {@code false} if the sink stopped the search
+     */
+    boolean searchRow(int row, String key, JsonSink sink) {
+        for (int c = 0; c < schema.length; c++) {
+            if (schema[c].equals(key) && !sink.accept(columns[c].get(row)))
+                return false;
+            if (!columns[c].searchElement(row, key, sink))
+                return false;
+        }
+        return true;
+    }
 
+    /**
+     * Passes the matches for {@code key} within element {@code i} to {@code sink}.
+     */
+    private boolean searchElement(int i, String key, JsonSink sink) {
+        if (layout == COLUMNS)
+            return searchRow(i, key, sink);
+        if (layout == GENERAL) {
+            JsonElement element = elements.get(i);
+            if (!(element instanceof JsonPrimitive))
+                return element.search(key, sink);
+        }
+        return true;
     }
 
+    /**
+     * Packed elements hold no member names and are only counted. A columnar array adds each key of
+     * its schema once and then the contents of its columns.
+     */
     @Override
-    public JsonArray search(String key) {
-
-        JsonArray result = new JsonArray();
-
-        for (JsonElement el : elements) {
-            result.addAll(el.search(key));
+    void collectKeys(KeyFilter.Collector collector) {
+        if (isPacked()) {
+            collector.scalars(packedSize);
+        } else if (layout == COLUMNS) {
+            collector.scalars(packedSize);
+            for (int c = 0; c < columns.length; c++) {
+                collector.key(schema[c]);
+                columns[c].collectKeys(collector);
+            }
+        } else {
+            super.collectKeys(collector);
         }
+    }
 
-        return result;
+    /**
+     * @return {@code false} if no element can contain an object member, so a search can skip the array
+     */
+    private boolean mayContainKeys() {
+        if (layout == COLUMNS)
+            return true;
+        if (layout != GENERAL || elements == null)
+            return false;
+        for (JsonElement element : elements) {
+            if (element instanceof JsonArray) {
+                if (((JsonArray) element).mayContainKeys())
+                    return true;
+            } else if (!(element instanceof JsonPrimitive)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
-    public void completePath(Queue<String> jsonPath) throws InvalidJsonPathException {
-        String head = jsonPath.poll();
-        String next = jsonPath.peek();
-
-        if (head == null) {
+    public void completePath(JsonPath path, int depth) throws InvalidJsonPathException {
+        if (depth == path.length()) {
             return;
         }
+        invalidateKeyFilter();
 
-        JsonElement nextElement = (next == null) ? JsonNull.INSTANCE : (next.matches("\\[\\d+\\]") ? new JsonArray() : new JsonObject());
+        String head = path.token(depth);
+        JsonElement nextElement = (depth + 1 == path.length()) ? JsonNull.INSTANCE : (path.isIndex(depth + 1) ? new JsonArray() : new JsonObject());
 
-        if (!head.matches("\\[\\d+\\]")) {
+        if (!path.isIndex(depth)) {
             throw new InvalidJsonPathException("Expected array index but got object key '" + head + "'");
         }
 
-        int index = Integer.parseInt(head.substring(1, head.length() - 1));
+        int index = path.index(depth);
         if (index == size()) {
             add(nextElement);
         } else if (index > size()) {
@@ -170,50 +874,50 @@ public class JsonArray extends JsonComposite {
         }
 
 
-        get(index).completePath(jsonPath);
+        get(index).completePath(path, depth + 1);
     }
 
     @Override
-    public JsonElement getValueAt(Queue<String> jsonPath, String previousKey) throws NotFoundException {
-        String head = jsonPath.poll();
-
-        if(head == null)
+    public JsonElement getValueAt(JsonPath path, int depth, String previousKey) throws NotFoundException {
+        if(depth == path.length())
             return this;
 
-        if (!head.matches("\\[\\d+\\]")) {
+        String head = path.token(depth);
+        if (!path.isIndex(depth)) {
             throw new NotFoundException("In array " + previousKey + ", '" + head + "' is not a valid index");
         }
 
-        int index = Integer.parseInt(head.substring(1, head.length() - 1));
+        int index = path.index(depth);
         if (index >= size()) {
             throw new NotFoundException(head + " is greater than the number of items in array " + previousKey);
         }
 
         JsonElement element = get(index);
-        return element.getValueAt(jsonPath, head);
+        return element.getValueAt(path, depth + 1, head);
 
         }
 
     @Override
-    public String assign(Queue<String> jsonPath, String previousKey, JsonElement valueToAdd) throws NotFoundException {
+    public String assign(JsonPath path, int depth, String previousKey, JsonElement valueToAdd) throws NotFoundException {
 
 
-        if (jsonPath.isEmpty()) {
+        if (depth == path.length()) {
             return "Empty JSON path";
         }
+        invalidateKeyFilter();
 
-        String head = jsonPath.poll();
+        String head = path.token(depth);
 
-        if (!head.matches("\\[\\d+\\]")) {
+        if (!path.isIndex(depth)) {
             return "In array " + previousKey + ", '" + head + "' is not a valid index format";
         }
 
-        int index = Integer.parseInt(head.substring(1, head.length() - 1));
+        int index = path.index(depth);
         if (index >= size()) {
             return head + " is greater than the number of items in the array " + previousKey;
         }
 
-        if (jsonPath.isEmpty()) {
+        if (depth + 1 == path.length()) {
             if (valueToAdd instanceof Nothing) {
                 remove(index);
                 return "Element removed";
@@ -223,6 +927,33 @@ public class JsonArray extends JsonComposite {
             }
         }
 
-        return get(index).assign(jsonPath, head, valueToAdd);
+        return get(index).assign(path, depth + 1, head, valueToAdd);
+    }
+
+    @Override
+    public String insert(JsonPath path, int depth, String previousKey, int position, JsonElement valueToAdd) throws NotFoundException {
+        if (depth == path.length()) {
+            return "Empty JSON path";
+        }
+        invalidateKeyFilter();
+
+        String head = path.token(depth);
+
+        if (!path.isIndex(depth)) {
+            return "In array " + previousKey + ", '" + head + "' is not a valid index format";
+        }
+
+        int index = path.index(depth);
+        boolean last = depth + 1 == path.length();
+        if (index > size() || (index == size() && !last)) {
+            return head + " is greater than the number of items in the array " + previousKey;
+        }
+
+        if (last) {
+            add(index, valueToAdd);
+            return "Element inserted";
+        }
+
+        return get(index).insert(path, depth + 1, head, position, valueToAdd);
     }
 }
\ No newline at end of file
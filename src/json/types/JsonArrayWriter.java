@@ -0,0 +1,59 @@
+package src.json.types;
+
+import java.io.IOException;
+
+/**
+ * Writes an array whose elements arrive one at a time, e.g. the matches of a query, without
+ * collecting them in a {@link JsonArray} first. The output is the same as writing an array that
+ * holds the elements.
+ */
+public class JsonArrayWriter {
+    private final JsonWriter writer;
+    private final int indent;
+    private int count;
+
+    /**
+     * @param writer destination of the output
+     * @param indent nesting level of the array
+     */
+    public JsonArrayWriter(JsonWriter writer, int indent) {
+        this.writer = writer;
+        this.indent = indent;
+    }
+
+    /**
+     * Appends an element. It is written immediately, so it may change afterwards.
+     *
+     * @param element element to append
+     * @throws IOException if the writer's sink fails
+     */
+    public void add(JsonElement element) throws IOException {
+        if (count == 0)
+            writer.beginArray(indent);
+        else
+            writer.endElement(false);
+        writer.beginElement(element, indent);
+        element.write(writer, indent + 1);
+        count++;
+    }
+
+    /**
+     * Closes the array.
+     *
+     * @throws IOException if the writer's sink fails
+     */
+    public void finish() throws IOException {
+        if (count == 0)
+            writer.beginArray(indent);
+        else
+            writer.endElement(true);
+        writer.endArray(indent);
+    }
+
+    /**
+     * @return number of elements written so far
+     */
+    public int count() {
+        return count;
+    }
+}
@@ -1,5 +1,7 @@
 package src.json.types;
 
+import java.io.IOException;
+
 /**
  * Represents a JSON boolean value.
  */
@@ -31,8 +33,8 @@ public class JsonBoolean extends JsonPrimitive {
     }
 
     @Override
-    public String toJson(int padding) {
-        return toString();
+    public void write(JsonWriter writer, int indent) throws IOException {
+        writer.literal(toString());
     }
 
     /**
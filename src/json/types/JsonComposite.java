@@ -5,12 +5,82 @@ import src.exception.NotFoundException;
 import java.util.Queue;
 
 public abstract class JsonComposite implements JsonElement {
+
+    /**
+     * Filter of the member names below this container, {@link KeyFilter#STALE} once an edit has
+     * gone through the container, or {@code null} if it has none. Filters are never changed in
+     * place, so copies of a container may share one.
+     */
+    private volatile long[] keyFilter;
+
     @Override
     public String extraNewline() {
         return "";
     }
 
+    /**
+     * Computes the {@link KeyFilter} of this container from its children, for a container that was
+     * put together from values parsed separately.
+     */
+    public void summarizeKeys() {
+        keyFilter = KeyFilter.summarize(this);
+    }
+
+    void setKeyFilter(long[] filter) {
+        keyFilter = filter;
+    }
+
+    /**
+     * @param key member name
+     * @return {@code false} if the key filter shows that no member below this container is named
+     *         {@code key}, so a search can skip it
+     */
+    boolean mayContainKey(String key) {
+        long[] filter = keyFilter();
+        return filter == null || KeyFilter.mayContain(filter, key);
+    }
+
+    /**
+     * @return the key filter, computed again first if an edit has made it out of date, or
+     *         {@code null} if there is none
+     */
+    long[] keyFilter() {
+        long[] filter = keyFilter;
+        if (filter == KeyFilter.STALE) {
+            filter = KeyFilter.summarize(this);
+            keyFilter = filter;
+        }
+        return filter;
+    }
 
+    /**
+     * Marks the key filter as out of date. Called by every edit that changes this container or
+     * passes through it on its way down.
+     */
+    void invalidateKeyFilter() {
+        if (keyFilter != null)
+            keyFilter = KeyFilter.STALE;
+    }
 
+    /**
+     * Gives a copy of {@code original} the same key filter.
+     *
+     * @param stale {@code true} if the copy is about to be edited
+     */
+    void copyKeyFilter(JsonComposite original, boolean stale) {
+        long[] filter = original.keyFilter;
+        keyFilter = stale && filter != null ? KeyFilter.STALE : filter;
+    }
 
+    /**
+     * Passes the children and member names of this container to {@code collector}.
+     */
+    void collectKeys(KeyFilter.Collector collector) {
+        forEachChild((key, index, child) -> {
+            if (key != null)
+                collector.key(key);
+            collector.child(child);
+            return true;
+        });
+    }
 }
@@ -3,7 +3,8 @@ package src.json.types;
 import src.exception.InvalidJsonPathException;
 import src.exception.NotFoundException;
 
-import java.util.Queue;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 /**
  * Represents a generic JSON element.
@@ -17,16 +18,159 @@ public interface JsonElement {
      */
     JsonElement deepCopy();
 
-    String toJson(int padding);
+    /**
+     * Prepares an edit along {@code path} that must not be visible through this element.
+     * <p>
+     * Every container the path passes through is copied shallowly and all other elements are
+     * shared, so the cost depends on the containers on the path rather than on the size of the
+     * document. The element the path ends at is shared too, since an edit replaces it in its
+     * parent instead of changing it.
+     *
+     * @param path  path that the edit will follow
+     * @param depth position in {@code path} of the segment below this element
+     * @return this element if the edit does not modify it, otherwise a partial copy
+     */
+    default JsonElement copyPath(JsonPath path, int depth) {
+        return this;
+    }
+
+    /**
+     * Serializes the element in the pretty-printed format used by {@code print} and {@code save}.
+     *
+     * @param padding nesting level of the element
+     * @return the JSON text
+     */
+    default String toJson(int padding) {
+        return toJson(padding, JsonFormat.PRETTY);
+    }
+
+    /**
+     * Serializes the element in the given layout.
+     *
+     * @param padding nesting level of the element
+     * @param format  layout of the output
+     * @return the JSON text
+     */
+    default String toJson(int padding, JsonFormat format) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            write(new JsonWriter(sb, format), padding);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Streams the element to {@code writer}.
+     *
+     * @param writer destination of the output
+     * @param indent nesting level of the element
+     * @throws IOException if the writer's sink fails
+     */
+    void write(JsonWriter writer, int indent) throws IOException;
+
+    /**
+     * Collects the values of all members named {@code key} at any depth, in document order.
+     *
+     * @param key member name
+     * @return the values found
+     */
+    default JsonArray search(String key) {
+        JsonArray result = new JsonArray();
+        search(key, match -> {
+            result.add(match);
+            return true;
+        });
+        return result;
+    }
+
+    /**
+     * Passes the values of all members named {@code key} at any depth to {@code sink}, in document
+     * order, as they are found. Nothing is collected, and the walk ends as soon as the sink asks
+     * it to.
+     *
+     * @param key  member name
+     * @param sink receiver of the values
+     * @return {@code false} if the sink stopped the search
+     */
+    boolean search(String key, JsonSink sink);
+
+    /**
+     * Passes the members of an object or the elements of an array to {@code visitor} in document
+     * order. Scalars have no children.
+     *
+     * @param visitor receiver of the children
+     * @return {@code false} if the visitor stopped the walk
+     */
+    default boolean forEachChild(ChildVisitor visitor) {
+        return true;
+    }
+
+    /**
+     * @param key member name
+     * @return the value of member {@code key} of an object, or {@code null} if there is none or
+     *         this is not an object
+     */
+    default JsonElement member(String key) {
+        return null;
+    }
+
+    /**
+     * @param index array position
+     * @return element {@code index} of an array, or {@code null} if it is out of range or this is
+     *         not an array
+     */
+    default JsonElement element(int index) {
+        return null;
+    }
+
+    /**
+     * @param position position of a member, in insertion order, or of an element
+     * @return the value of the member or the element at {@code position}, or {@code null} if it is
+     *         out of range or this is a scalar
+     */
+    default JsonElement child(int position) {
+        return element(position);
+    }
 
-    JsonArray search(String key);
+    /**
+     * @return the number of members or elements, 0 for a scalar
+     */
+    default int size() {
+        return 0;
+    }
 
     String extraNewline();
 
-    void completePath(Queue<String> jsonPath) throws InvalidJsonPathException;
+    /**
+     * Creates the missing containers along {@code path}, below segment {@code depth}.
+     */
+    void completePath(JsonPath path, int depth) throws InvalidJsonPathException;
+
+    /**
+     * Looks up the element that the segments of {@code path} from {@code depth} on lead to.
+     */
+    JsonElement getValueAt(JsonPath path, int depth, String previousKey) throws NotFoundException;
 
-    JsonElement getValueAt(Queue<String> jsonPath, String previousKey) throws NotFoundException;
+    /**
+     * Replaces, or removes when {@code valueToAdd} is {@link Nothing}, the element that the
+     * segments of {@code path} from {@code depth} on lead to.
+     */
+    String assign(JsonPath path, int depth, String previousKey, JsonElement valueToAdd) throws NotFoundException;
 
-    String assign(Queue<String> jsonPath, String previousKey, JsonElement valueToAdd) throws NotFoundException;
+    /**
+     * Adds a member or element that does not exist yet at the end of {@code path}, the reverse
+     * of removing it with {@link #assign}.
+     *
+     * @param path        path of the new member or element; its container must exist
+     * @param depth       position in {@code path} of the segment below this element
+     * @param previousKey last object key or array index, for error messages
+     * @param position    position among the members of an object; for an array the index in the path is used
+     * @param valueToAdd  value to insert
+     * @return "Element inserted", or a message describing why the path is invalid
+     * @throws NotFoundException if the path cannot be resolved
+     */
+    String insert(JsonPath path, int depth, String previousKey, int position, JsonElement valueToAdd) throws NotFoundException;
 
 }
@@ -0,0 +1,90 @@
+package src.json.types;
+
+/**
+ * Layout options for serialized JSON.
+ * <p>
+ * {@link #PRETTY} is the tab-indented layout that {@code print} and {@code save} have always
+ * produced. {@link #COMPACT} drops all insignificant whitespace. Other layouts are derived with
+ * {@link #indented(int)} and {@link #withLineSeparator(String)}.
+ * <p>
+ * Formats are immutable. The indentation string for every nesting level is built once and
+ * reused, so writing a node costs a single append for its indentation.
+ */
+public final class JsonFormat {
+    /** Tab-indented output with {@code \n} line breaks. */
+    public static final JsonFormat PRETTY = new JsonFormat(false, "\t", "\n");
+
+    /** Output without whitespace; JSON Lines records are still separated by {@code \n}. */
+    public static final JsonFormat COMPACT = new JsonFormat(true, "", "\n");
+
+    private static final int PRECOMPUTED_LEVELS = 32;
+
+    private final boolean compact;
+    private final String indentUnit;
+    private final String lineSeparator;
+    private volatile String[] indents;
+
+    private JsonFormat(boolean compact, String indentUnit, String lineSeparator) {
+        this.compact = compact;
+        this.indentUnit = indentUnit;
+        this.lineSeparator = lineSeparator;
+        this.indents = buildIndents(PRECOMPUTED_LEVELS);
+    }
+
+    /**
+     * Creates a pretty-printed format indented with spaces.
+     *
+     * @param width number of spaces per nesting level; 0 keeps line breaks but no indentation
+     * @return the format
+     * @throws IllegalArgumentException if {@code width} is negative
+     */
+    public static JsonFormat indented(int width) {
+        if (width < 0)
+            throw new IllegalArgumentException("Indent width must not be negative");
+        return new JsonFormat(false, " ".repeat(width), PRETTY.lineSeparator);
+    }
+
+    /**
+     * @param lineSeparator text written at every line break, e.g. {@code "\r\n"}
+     * @return a copy of this format with a different line separator
+     */
+    public JsonFormat withLineSeparator(String lineSeparator) {
+        return new JsonFormat(compact, indentUnit, lineSeparator);
+    }
+
+    /**
+     * @return {@code true} if no whitespace is written between tokens
+     */
+    public boolean isCompact() {
+        return compact;
+    }
+
+    /**
+     * @return the text written at every line break
+     */
+    public String getLineSeparator() {
+        return lineSeparator;
+    }
+
+    /**
+     * @param depth nesting level
+     * @return the indentation for {@code depth}, shared between calls
+     */
+    String indent(int depth) {
+        String[] cached = indents;
+        if (depth >= cached.length) {
+            cached = buildIndents(Math.max(depth + 1, cached.length * 2));
+            indents = cached;
+        }
+        return cached[depth];
+    }
+
+    private String[] buildIndents(int levels) {
+        String[] built = new String[levels];
+        built[0] = "";
+        for (int i = 1; i < levels; i++) {
+            built[i] = built[i - 1] + indentUnit;
+        }
+        return built;
+    }
+}
@@ -0,0 +1,59 @@
+package src.json.types;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A JSON Lines (NDJSON) document: one independent JSON value per line of the file.
+ * <p>
+ * The records behave like the elements of an array, so they are addressed as {@code [n]}, where
+ * record {@code [n]} is line {@code n + 1} of the file. Blank lines are kept as empty records.
+ * {@link ParallelSearch} splits a large document into ranges of records, keeping the results in
+ * line order.
+ */
+public class JsonLines extends JsonArray {
+
+    /**
+     * @param records the record of every line, in file order
+     */
+    public JsonLines(List<JsonElement> records) {
+        super(records);
+    }
+
+    /**
+     * Creates a deep copy that is still a JSON Lines document.
+     *
+     * @return a new {@code JsonLines} with copied records
+     */
+    @Override
+    public JsonElement deepCopy() {
+        List<JsonElement> copy = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            copy.add(get(i).deepCopy());
+        }
+        JsonLines lines = new JsonLines(copy);
+        lines.copyKeyFilter(this, false);
+        return lines;
+    }
+
+    /**
+     * Partial copies made for an edit stay JSON Lines documents.
+     */
+    @Override
+    JsonArray createEmpty() {
+        return new JsonLines(new ArrayList<>());
+    }
+
+    /**
+     * Prints the records one after another rather than as an array.
+     */
+    @Override
+    public void write(JsonWriter writer, int indent) throws IOException {
+        for (int i = 0; i < size(); i++) {
+            JsonElement record = get(i);
+            writer.beginRecord(record, i == 0);
+            record.write(writer, indent);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package src.json.types;
 
+import java.io.IOException;
+
 /**
  * Represents a JSON {@code null} value (singleton).
  */
@@ -20,8 +22,8 @@ public class JsonNull extends JsonPrimitive {
     }
 
     @Override
-    public String toJson(int padding) {
-        return toString();
+    public void write(JsonWriter writer, int indent) throws IOException {
+        writer.literal(toString());
     }
 
 
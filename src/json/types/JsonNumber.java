@@ -1,25 +1,160 @@
 package src.json.types;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
 /**
- * Represents a JSON number, backed by a {@link Number}.
+ * Represents a JSON number.
+ * <p>
+ * Whole numbers that fit in 64 bits are stored as a {@code long} and other numbers that a
+ * {@code double} can represent are stored as a {@code double}, without boxing. Anything else, such
+ * as an integer above {@link Long#MAX_VALUE} or a decimal with more significant digits than a
+ * {@code double} holds, keeps its source text and is converted to a {@link BigDecimal} only when
+ * read, so no precision is lost.
  */
 public class JsonNumber extends JsonPrimitive {
-    private final Number value;
+    private static final byte LONG = 0;
+    private static final byte DOUBLE = 1;
+    private static final byte TEXT = 2;
+
+    private final byte kind;
+    private final long longValue;
+    private final double doubleValue;
+    private final String text;
+
+    private JsonNumber(byte kind, long longValue, double doubleValue, String text) {
+        this.kind = kind;
+        this.longValue = longValue;
+        this.doubleValue = doubleValue;
+        this.text = text;
+    }
+
+    /**
+     * Constructs a whole number.
+     *
+     * @param value the numeric value
+     */
+    public JsonNumber(long value) {
+        this(LONG, value, 0, null);
+    }
+
+    /**
+     * Constructs a floating-point number.
+     *
+     * @param value the numeric value
+     */
+    public JsonNumber(double value) {
+        this(DOUBLE, 0, value, null);
+    }
 
     /**
      * Constructs a {@code JsonNumber} with the given numeric value.
+     * Integer types are stored as {@code long}, {@link BigInteger} and {@link BigDecimal} keep their
+     * exact text, and any other {@link Number} is stored as a {@code double}.
      *
      * @param value the numeric value to wrap
      */
     public JsonNumber(Number value) {
-        this.value = value;
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            kind = LONG;
+            longValue = value.longValue();
+            doubleValue = 0;
+            text = null;
+        } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+            kind = TEXT;
+            longValue = 0;
+            doubleValue = 0;
+            text = value.toString();
+        } else {
+            kind = DOUBLE;
+            longValue = 0;
+            doubleValue = value.doubleValue();
+            text = null;
+        }
+    }
+
+    /**
+     * Creates a number that is kept as its source text.
+     *
+     * @param text a number in JSON syntax
+     * @return the number element
+     */
+    public static JsonNumber ofText(String text) {
+        return new JsonNumber(TEXT, 0, 0, text);
+    }
+
+    /**
+     * @return {@code true} if the number is stored as a 64-bit integer
+     */
+    public boolean isLong() {
+        return kind == LONG;
+    }
+
+    /**
+     * @return {@code true} if the number is stored as a {@code double}
+     */
+    public boolean isDouble() {
+        return kind == DOUBLE;
+    }
+
+    /**
+     * @return the value as a {@code long}, truncated or rounded like {@link Number#longValue()} if necessary
+     */
+    public long longValue() {
+        switch (kind) {
+            case LONG:
+                return longValue;
+            case DOUBLE:
+                return (long) doubleValue;
+            default:
+                return bigDecimalValue().longValue();
+        }
+    }
+
+    /**
+     * @return the value as a {@code double}, which may lose precision for large whole numbers or textual values
+     */
+    public double doubleValue() {
+        switch (kind) {
+            case LONG:
+                return longValue;
+            case DOUBLE:
+                return doubleValue;
+            default:
+                return Double.parseDouble(text);
+        }
     }
 
     /**
-     * @return the stored numeric value
+     * @return the exact value
+     * @throws NumberFormatException if a {@code double} value is infinite or NaN
+     */
+    public BigDecimal bigDecimalValue() {
+        switch (kind) {
+            case LONG:
+                return BigDecimal.valueOf(longValue);
+            case DOUBLE:
+                return BigDecimal.valueOf(doubleValue);
+            default:
+                return new BigDecimal(text);
+        }
+    }
+
+    /**
+     * Boxes the value. Prefer {@link #longValue()}, {@link #doubleValue()} or {@link #bigDecimalValue()}.
+     *
+     * @return a {@link Long}, {@link Double} or {@link BigDecimal}
      */
     public Number getValue() {
-        return value;
+        switch (kind) {
+            case LONG:
+                return longValue;
+            case DOUBLE:
+                return doubleValue;
+            default:
+                return bigDecimalValue();
+        }
     }
 
     /**
@@ -27,12 +162,12 @@ public class JsonNumber extends JsonPrimitive {
      */
     @Override
     public JsonElement deepCopy() {
-        return new JsonNumber(value);
+        return new JsonNumber(kind, longValue, doubleValue, text);
     }
 
     @Override
-    public String toJson(int padding) {
-        return toString();
+    public void write(JsonWriter writer, int indent) throws IOException {
+        writer.literal(toString());
     }
 
     /**
@@ -40,6 +175,13 @@ public class JsonNumber extends JsonPrimitive {
      */
     @Override
     public String toString() {
-        return value.toString();
+        switch (kind) {
+            case LONG:
+                return Long.toString(longValue);
+            case DOUBLE:
+                return Double.toString(doubleValue);
+            default:
+                return text;
+        }
     }
 }
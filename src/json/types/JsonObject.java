@@ -3,22 +3,113 @@ package src.json.types;
 import src.exception.InvalidJsonPathException;
 import src.exception.NotFoundException;
 
+import java.io.IOException;
 import java.util.*;
 
 /**
- * Represents a JSON object, storing key-value pairs.
+ * Represents a JSON object, storing key-value pairs in insertion order.
+ * <p>
+ * Members are kept in two parallel arrays instead of a map, so a member costs two array slots
+ * rather than a map entry. Most objects have only a few keys and are searched linearly, comparing
+ * by identity first since parsed keys are interned. Once an object grows past
+ * {@link #HASH_THRESHOLD} members, an open-addressing index of positions is built next to the
+ * arrays and kept up to date.
  */
 public class JsonObject extends JsonComposite {
-    private final Map<String, JsonElement> members = new LinkedHashMap<>();
+    /** Objects with more members than this get a hash index. */
+    static final int HASH_THRESHOLD = 8;
+
+    private static final String[] NO_KEYS = new String[0];
+    private static final JsonElement[] NO_VALUES = new JsonElement[0];
+
+    private String[] keys = NO_KEYS;
+    private JsonElement[] values = NO_VALUES;
+    private int size;
+
+    /** Position + 1 of each member, by hash of its key; {@code null} while the object is small. */
+    private int[] index;
+
+    /**
+     * Creates an empty object.
+     */
+    public JsonObject() {
+    }
 
     /**
-     * Adds or replaces a key-value pair in the object.
+     * Creates an empty object with room for {@code capacity} members.
+     *
+     * @param capacity expected number of members
+     */
+    JsonObject(int capacity) {
+        if (capacity > 0) {
+            keys = new String[capacity];
+            values = new JsonElement[capacity];
+        }
+    }
+
+    /**
+     * Adds or replaces a key-value pair in the object. A replaced member keeps its position.
      *
      * @param key the key to add or replace
      * @param value the value associated with the key
      */
     public void add(String key, JsonElement value) {
-        members.put(key, value);
+        invalidateKeyFilter();
+        int position = indexOf(key);
+        if (position >= 0) {
+            values[position] = value;
+            return;
+        }
+
+        if (size == keys.length) {
+            int capacity = size == 0 ? 4 : size * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        keys[size] = key;
+        values[size] = value;
+        size++;
+
+        if (index != null && size * 2 <= index.length)
+            insertIntoIndex(size - 1);
+        else if (size > HASH_THRESHOLD)
+            rebuildIndex();
+    }
+
+    /**
+     * Inserts a new member at {@code position}, shifting the members from that position on.
+     * If the key already exists its value is replaced in place instead.
+     *
+     * @param position position of the new member, at most {@link #size()}
+     * @param key the key to add
+     * @param value the value associated with the key
+     * @throws IndexOutOfBoundsException if {@code position} is out of range
+     */
+    public void add(int position, String key, JsonElement value) {
+        invalidateKeyFilter();
+        int existing = indexOf(key);
+        if (existing >= 0) {
+            values[existing] = value;
+            return;
+        }
+        if (position == size) {
+            add(key, value);
+            return;
+        }
+        Objects.checkIndex(position, size);
+
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        System.arraycopy(keys, position, keys, position + 1, size - position);
+        System.arraycopy(values, position, values, position + 1, size - position);
+        keys[position] = key;
+        values[position] = value;
+        size++;
+
+        if (size > HASH_THRESHOLD)
+            rebuildIndex();
     }
 
     /**
@@ -28,7 +119,27 @@ public class JsonObject extends JsonComposite {
      * @return the associated {@code JsonElement}, or {@code null} if not present
      */
     public JsonElement get(String key) {
-        return members.get(key);
+        int position = indexOf(key);
+        return position < 0 ? null : values[position];
+    }
+
+    @Override
+    public JsonElement member(String key) {
+        return get(key);
+    }
+
+    @Override
+    public JsonElement child(int position) {
+        return position >= 0 && position < size ? values[position] : null;
+    }
+
+    @Override
+    public boolean forEachChild(ChildVisitor visitor) {
+        for (int i = 0; i < size; i++) {
+            if (!visitor.visit(keys[i], i, values[i]))
+                return false;
+        }
+        return true;
     }
 
     /**
@@ -38,14 +149,59 @@ public class JsonObject extends JsonComposite {
      * @return the removed {@code JsonElement}, or {@code null} if not present
      */
     public JsonElement remove(String key) {
-        return members.remove(key);
+        int position = indexOf(key);
+        if (position < 0)
+            return null;
+
+        invalidateKeyFilter();
+        JsonElement removed = values[position];
+        System.arraycopy(keys, position + 1, keys, position, size - position - 1);
+        System.arraycopy(values, position + 1, values, position, size - position - 1);
+        size--;
+        keys[size] = null;
+        values[size] = null;
+
+        if (size > HASH_THRESHOLD)
+            rebuildIndex();
+        else
+            index = null;
+        return removed;
     }
 
     /**
-     * @return a set of all keys in the object
+     * @return a set of all keys in the object, in insertion order
      */
     public Set<String> keySet() {
-        return members.keySet();
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < size;
+                    }
+
+                    @Override
+                    public String next() {
+                        if (next >= size)
+                            throw new NoSuchElementException();
+                        return keys[next++];
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof String && containsKey((String) o);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
     }
 
     /**
@@ -55,7 +211,87 @@ public class JsonObject extends JsonComposite {
      * @return {@code true} if the key exists, otherwise {@code false}
      */
     public boolean containsKey(String key) {
-        return members.containsKey(key);
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * @return the number of members
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param position index of a member in insertion order
+     * @return its key
+     */
+    String keyAt(int position) {
+        return keys[position];
+    }
+
+    /**
+     * @param position index of a member in insertion order
+     * @return its value
+     */
+    JsonElement valueAt(int position) {
+        return values[position];
+    }
+
+    /**
+     * Releases unused capacity once the object is complete, e.g. after parsing.
+     */
+    public void trimToSize() {
+        if (size < keys.length) {
+            keys = size == 0 ? NO_KEYS : Arrays.copyOf(keys, size);
+            values = size == 0 ? NO_VALUES : Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * @param key the key to look up
+     * @return position of the member in insertion order, or -1 if there is none
+     */
+    public int indexOf(String key) {
+        if (index == null) {
+            for (int i = 0; i < size; i++) {
+                if (keys[i] == key)
+                    return i;
+            }
+            for (int i = 0; i < size; i++) {
+                if (keys[i].equals(key))
+                    return i;
+            }
+            return -1;
+        }
+
+        int mask = index.length - 1;
+        for (int slot = spread(key.hashCode()) & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+            int position = index[slot] - 1;
+            if (keys[position].equals(key))
+                return position;
+        }
+        return -1;
+    }
+
+    private void rebuildIndex() {
+        int capacity = Integer.highestOneBit(size * 4 - 1);
+        index = new int[Math.max(capacity, 32)];
+        for (int i = 0; i < size; i++) {
+            insertIntoIndex(i);
+        }
+    }
+
+    private void insertIntoIndex(int position) {
+        int mask = index.length - 1;
+        int slot = spread(keys[position].hashCode()) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = position + 1;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
     }
 
     /**
@@ -65,65 +301,74 @@ public class JsonObject extends JsonComposite {
      */
     @Override
     public JsonElement deepCopy() {
-        JsonObject copy = new JsonObject();
-        for (Map.Entry<String, JsonElement> entry : members.entrySet()) {
-            copy.add(entry.getKey(), entry.getValue().deepCopy());
+        JsonObject copy = new JsonObject(size);
+        for (int i = 0; i < size; i++) {
+            copy.add(keys[i], values[i].deepCopy());
         }
+        copy.copyKeyFilter(this, false);
         return copy;
     }
 
+    /**
+     * Copies the member arrays, sharing every value except the one on the path.
+     */
     @Override
-    public String toJson(int indent) {
-        StringBuilder sb = new StringBuilder();
-
-        String padding = "\t".repeat(Math.max(0, indent));
-        String biggerPadding =  "\t".repeat(indent+1);
-
-        sb.append("\n").append(padding).append("{\n");
-
-        int i = 0;
-        for (var key  : members.keySet()) {
-
-            sb.append(biggerPadding).append("\"").append(key).append("\"").append(" : ").
-                    append(members.get(key).toJson(indent+1));
-            if(i != members.size()-1)
-                sb.append(",");
+    public JsonElement copyPath(JsonPath path, int depth) {
+        if (depth == path.length())
+            return this;
 
-            sb.append("\n");
-            i++;
+        JsonObject copy = new JsonObject();
+        if (size > 0) {
+            copy.keys = Arrays.copyOf(keys, size);
+            copy.values = Arrays.copyOf(values, size);
         }
-        sb.append(padding).append("}");
-        return sb.toString();
+        copy.size = size;
+        copy.index = index == null ? null : index.clone();
+        copy.copyKeyFilter(this, true);
 
+        int position = indexOf(path.token(depth));
+        if (position >= 0)
+            copy.values[position] = values[position].copyPath(path, depth + 1);
+        return copy;
     }
 
     @Override
-    public JsonArray search(String key) {
-
-        JsonArray result = new JsonArray();
-        for (String k : members.keySet()) {
+    public void write(JsonWriter writer, int indent) throws IOException {
+        writer.beginObject(indent);
 
-            if (k.equals(key)) {
-                JsonElement value = members.get(k);
-                result.add(value);
-            }
-            result.addAll(members.get(k).search(key));
+        for (int i = 0; i < size; i++) {
+            writer.name(keys[i], indent);
+            values[i].write(writer, indent + 1);
+            writer.endMember(i == size - 1);
         }
-        return result;
+        writer.endObject(indent);
     }
 
     @Override
-    public void completePath(Queue<String> jsonPath) throws InvalidJsonPathException {
+    public boolean search(String key, JsonSink sink) {
+        if (!mayContainKey(key))
+            return true;
+        for (int i = 0; i < size; i++) {
+            if (keys[i].equals(key) && !sink.accept(values[i]))
+                return false;
+            if (!values[i].search(key, sink))
+                return false;
+        }
+        return true;
+    }
 
-        String head = jsonPath.poll();
-        String next = jsonPath.peek();
+    @Override
+    public void completePath(JsonPath path, int depth) throws InvalidJsonPathException {
 
-        if (head == null) {
+        if (depth == path.length()) {
             return;
         }
-        JsonElement nextElement = (next == null) ? JsonNull.INSTANCE : (next.matches("\\[\\d+\\]") ? new JsonArray() : new JsonObject());
+        invalidateKeyFilter();
+
+        String head = path.token(depth);
+        JsonElement nextElement = (depth + 1 == path.length()) ? JsonNull.INSTANCE : (path.isIndex(depth + 1) ? new JsonArray() : new JsonObject());
 
-        if (head.matches("\\[\\d+\\]")) {
+        if (path.isIndex(depth)) {
             throw new InvalidJsonPathException("Unexpected array index '" + head + "' in object path");
         }
 
@@ -132,44 +377,45 @@ public class JsonObject extends JsonComposite {
         }
 
 
-        get(head).completePath(jsonPath);
+        get(head).completePath(path, depth + 1);
 
     }
 
     @Override
-    public JsonElement getValueAt(Queue<String> jsonPath, String previousKey) throws NotFoundException {
-        String head = jsonPath.poll();
-
-        if(head == null)
+    public JsonElement getValueAt(JsonPath path, int depth, String previousKey) throws NotFoundException {
+        if(depth == path.length())
             return this;
 
+        String head = path.token(depth);
+
         if (!containsKey(head)) {
             throw new NotFoundException("JSON object '" + previousKey + "' has no key '" + head + "'");
         }
 
         JsonElement element = get(head);
-        return element.getValueAt(jsonPath, head);
+        return element.getValueAt(path, depth + 1, head);
 
 
 
     }
 
     @Override
-    public String assign(Queue<String> jsonPath, String previousKey, JsonElement valueToAdd) throws NotFoundException {
+    public String assign(JsonPath path, int depth, String previousKey, JsonElement valueToAdd) throws NotFoundException {
 
 
-        if (jsonPath.isEmpty()) {
+        if (depth == path.length()) {
             return "Empty JSON Path";
         }
+        invalidateKeyFilter();
 
-        String head = jsonPath.poll();
+        String head = path.token(depth);
 
 
         if (!containsKey(head)) {
             return "Json path error: '" + previousKey + "' has no key '" + head + "'";
         }
 
-        if (jsonPath.isEmpty()) {
+        if (depth + 1 == path.length()) {
             if (valueToAdd instanceof Nothing) {
                 remove(head);
                 return "Element removed";
@@ -179,16 +425,45 @@ public class JsonObject extends JsonComposite {
             }
         }
 
-        return get(head).assign(jsonPath, head, valueToAdd);
+        return get(head).assign(path, depth + 1, head, valueToAdd);
 
 
     }
 
+    @Override
+    public String insert(JsonPath path, int depth, String previousKey, int position, JsonElement valueToAdd) throws NotFoundException {
+        if (depth == path.length()) {
+            return "Empty JSON Path";
+        }
+        invalidateKeyFilter();
+
+        String head = path.token(depth);
+
+        if (depth + 1 == path.length()) {
+            if (containsKey(head)) {
+                return "Json path error: '" + previousKey + "' already has key '" + head + "'";
+            }
+            add(position, head, valueToAdd);
+            return "Element inserted";
+        }
+
+        if (!containsKey(head)) {
+            return "Json path error: '" + previousKey + "' has no key '" + head + "'";
+        }
+        return get(head).insert(path, depth + 1, head, position, valueToAdd);
+    }
+
     /**
      * @return string representation of the object
      */
     @Override
     public String toString() {
-        return members.toString();
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < size; i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append(keys[i]).append('=').append(values[i]);
+        }
+        return sb.append('}').toString();
     }
-}
\ No newline at end of file
+}
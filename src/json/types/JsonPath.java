@@ -0,0 +1,161 @@
+package src.json.types;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A parsed JSON path such as {@code root.items[3].name}.
+ * <p>
+ * The text is split once into segments: object keys, and array indices in brackets whose numbers
+ * are decoded up front. Paths are immutable and are walked by position rather than consumed, so
+ * one instance serves any number of lookups without allocating. {@link #compile(String)} keeps the
+ * most recently used paths, so a script that repeats a few paths parses each of them only once.
+ */
+public final class JsonPath {
+    /** Number of paths kept by {@link #compile(String)}. */
+    public static final int CACHE_SIZE = 1024;
+
+    private static final Map<String, JsonPath> CACHE = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JsonPath> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final String text;
+    private final String[] tokens;
+    /** Decoded index of each {@code [n]} token, or -1 for keys. */
+    private final int[] indices;
+
+    private JsonPath(String text, String[] tokens, int[] indices) {
+        this.text = text;
+        this.tokens = tokens;
+        this.indices = indices;
+    }
+
+    /**
+     * Returns the compiled form of a path, reusing an earlier compilation of the same text.
+     * <p>
+     * The text is split at dots, and each part is split further before every {@code [}. So
+     * {@code a.b[0][1]} has the segments {@code a}, {@code b}, {@code [0]} and {@code [1]}.
+     *
+     * @param text dot / bracket path, e.g. {@code root.array[0]}
+     * @return the compiled path
+     */
+    public static JsonPath compile(String text) {
+        synchronized (CACHE) {
+            JsonPath path = CACHE.get(text);
+            if (path == null) {
+                path = parse(text);
+                CACHE.put(text, path);
+            }
+            return path;
+        }
+    }
+
+    private static JsonPath parse(String text) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : text.split("\\.")) {
+            int bracketIndex;
+            String substr = segment;
+            boolean wasSplit = false;
+            while (true) {
+                bracketIndex = substr.indexOf('[');
+                if (bracketIndex != -1) {
+                    if (bracketIndex != 0) {
+                        segments.add(substr.substring(0, bracketIndex));
+                    }
+                    int closingIndex = substr.indexOf(']');
+                    segments.add(substr.substring(bracketIndex, closingIndex + 1));
+                    substr = substr.substring(closingIndex + 1);
+                    wasSplit = true;
+                } else {
+                    break;
+                }
+            }
+            if (!wasSplit) {
+                segments.add(segment);
+            }
+        }
+
+        String[] tokens = segments.toArray(new String[0]);
+        int[] indices = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            indices[i] = decodeIndex(tokens[i]);
+        }
+        return new JsonPath(text, tokens, indices);
+    }
+
+    /**
+     * @return the number in a token of the form {@code [digits]}, capped at {@link Integer#MAX_VALUE},
+     *         or -1 for any other token
+     */
+    private static int decodeIndex(String token) {
+        int last = token.length() - 1;
+        if (last < 2 || token.charAt(0) != '[' || token.charAt(last) != ']')
+            return -1;
+
+        long value = 0;
+        for (int i = 1; i < last; i++) {
+            char c = token.charAt(i);
+            if (c < '0' || c > '9')
+                return -1;
+            value = Math.min(value * 10 + (c - '0'), Integer.MAX_VALUE);
+        }
+        return (int) value;
+    }
+
+    /**
+     * @return number of segments
+     */
+    public int length() {
+        return tokens.length;
+    }
+
+    /**
+     * @param depth segment position
+     * @return the segment as written, e.g. {@code name} or {@code [3]}
+     */
+    public String token(int depth) {
+        return tokens[depth];
+    }
+
+    /**
+     * @param depth segment position
+     * @return {@code true} if the segment is an array index
+     */
+    public boolean isIndex(int depth) {
+        return indices[depth] >= 0;
+    }
+
+    /**
+     * @param depth segment position
+     * @return the decoded array index, or -1 if the segment is a key
+     */
+    public int index(int depth) {
+        return indices[depth];
+    }
+
+    /**
+     * @param length number of leading segments to keep
+     * @return the path made of the first {@code length} segments
+     */
+    public JsonPath prefix(int length) {
+        if (length == tokens.length)
+            return this;
+        String[] prefixTokens = Arrays.copyOf(tokens, length);
+        return new JsonPath(String.join(".", prefixTokens).replace(".[", "["),
+                prefixTokens, Arrays.copyOf(indices, length));
+    }
+
+    /**
+     * @return the text the path was compiled from
+     */
+    @Override
+    public String toString() {
+        return text;
+    }
+}
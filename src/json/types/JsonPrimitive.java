@@ -3,8 +3,6 @@ package src.json.types;
 import src.exception.InvalidJsonPathException;
 import src.exception.NotFoundException;
 
-import java.util.Queue;
-
 public abstract class JsonPrimitive implements JsonElement {
     @Override
     public String extraNewline() {
@@ -12,25 +10,30 @@ public abstract class JsonPrimitive implements JsonElement {
     }
 
     @Override
-    public void completePath(Queue<String> path) throws InvalidJsonPathException {
-        if(path.isEmpty())
+    public void completePath(JsonPath path, int depth) throws InvalidJsonPathException {
+        if(depth == path.length())
             return;
         throw new InvalidJsonPathException("Invalid path");
     }
 
     @Override
-    public JsonArray search(String key) {return new JsonArray();}
+    public boolean search(String key, JsonSink sink) {return true;}
 
     @Override
-    public JsonElement getValueAt(Queue<String> jsonPath, String previousKey) throws NotFoundException {
-        if(jsonPath.isEmpty())
+    public JsonElement getValueAt(JsonPath path, int depth, String previousKey) throws NotFoundException {
+        if(depth == path.length())
             return this;
 
         throw new NotFoundException("Invalid JSON structure at '" + previousKey + "', cannot descend into primitive");
     }
 
     @Override
-    public String assign(Queue<String> jsonPath, String previousKey, JsonElement valueToAdd) throws NotFoundException {
+    public String assign(JsonPath path, int depth, String previousKey, JsonElement valueToAdd) throws NotFoundException {
+        return "Invalid JSON structure: Cannot descend into primitive at " + previousKey;
+    }
+
+    @Override
+    public String insert(JsonPath path, int depth, String previousKey, int position, JsonElement valueToAdd) {
         return "Invalid JSON structure: Cannot descend into primitive at " + previousKey;
     }
 
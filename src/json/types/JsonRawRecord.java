@@ -0,0 +1,50 @@
+package src.json.types;
+
+import java.io.IOException;
+
+/**
+ * A line of a JSON Lines document that is blank or not valid JSON.
+ * <p>
+ * The text of the line is kept as it was read, so that saving the document writes the line back
+ * unchanged instead of losing it, and the records after it stay at their line index. Otherwise the
+ * record behaves like a value without children: it can be printed, replaced or removed, but not
+ * searched or descended into.
+ */
+public class JsonRawRecord extends JsonPrimitive {
+    private final String text;
+
+    /**
+     * @param text the line, without its line separator
+     */
+    public JsonRawRecord(String text) {
+        this.text = text;
+    }
+
+    /**
+     * @return the line as it was read
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return this record, which cannot change
+     */
+    @Override
+    public JsonElement deepCopy() {
+        return this;
+    }
+
+    @Override
+    public void write(JsonWriter writer, int indent) throws IOException {
+        writer.literal(text);
+    }
+
+    /**
+     * @return the line as it was read
+     */
+    @Override
+    public String toString() {
+        return text;
+    }
+}
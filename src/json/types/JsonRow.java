@@ -0,0 +1,226 @@
+package src.json.types;
+
+import src.exception.InvalidJsonPathException;
+import src.exception.NotFoundException;
+
+import java.io.IOException;
+
+/**
+ * An object stored as one row of a columnar {@link JsonArray}.
+ * <p>
+ * The view holds no data of its own: reads and writes of existing members go straight to the
+ * columns. Edits that change the keys of the row, such as removing a member or creating a new one,
+ * move the array to its general layout first and are then applied to the resulting object.
+ * A view is tied to a row position, so it should not be kept across insertions or removals of
+ * elements of the array.
+ */
+public class JsonRow extends JsonComposite {
+    private final JsonArray array;
+    private final int row;
+
+    JsonRow(JsonArray array, int row) {
+        this.array = array;
+        this.row = row;
+    }
+
+    /**
+     * @return the object this view stood for if the array is no longer columnar, otherwise {@code null}
+     */
+    private JsonElement detached() {
+        return array.isColumnar() ? null : array.get(row);
+    }
+
+    /**
+     * Retrieves the value associated with a given key.
+     *
+     * @param key the key to look up
+     * @return the associated {@code JsonElement}, or {@code null} if not present
+     */
+    public JsonElement get(String key) {
+        JsonElement detached = detached();
+        if (detached != null)
+            return ((JsonObject) detached).get(key);
+        int c = array.columnIndex(key);
+        return c < 0 ? null : array.cell(row, c);
+    }
+
+    @Override
+    public JsonElement member(String key) {
+        return get(key);
+    }
+
+    @Override
+    public JsonElement child(int position) {
+        JsonElement detached = detached();
+        if (detached != null)
+            return detached.child(position);
+        return position >= 0 && position < array.columnCount() ? array.cell(row, position) : null;
+    }
+
+    /**
+     * @param key the key to look up
+     * @return position of the member, or -1 if there is none
+     */
+    public int indexOf(String key) {
+        JsonElement detached = detached();
+        return detached != null ? ((JsonObject) detached).indexOf(key) : array.columnIndex(key);
+    }
+
+    @Override
+    public boolean forEachChild(ChildVisitor visitor) {
+        JsonElement detached = detached();
+        if (detached != null)
+            return detached.forEachChild(visitor);
+        for (int c = 0; c < array.columnCount(); c++) {
+            if (!visitor.visit(array.columnKey(c), c, array.cell(row, c)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of members
+     */
+    public int size() {
+        JsonElement detached = detached();
+        return detached != null ? ((JsonObject) detached).size() : array.columnCount();
+    }
+
+    /**
+     * @return a regular object with the members of this row
+     */
+    public JsonObject toObject() {
+        JsonElement detached = detached();
+        return detached != null ? (JsonObject) detached : array.rowObject(row);
+    }
+
+    /**
+     * @return a regular object with copies of the members of this row
+     */
+    @Override
+    public JsonElement deepCopy() {
+        return toObject().deepCopy();
+    }
+
+    @Override
+    public void write(JsonWriter writer, int indent) throws IOException {
+        JsonElement detached = detached();
+        if (detached != null)
+            detached.write(writer, indent);
+        else
+            array.writeRow(row, writer, indent);
+    }
+
+    @Override
+    public boolean search(String key, JsonSink sink) {
+        JsonElement detached = detached();
+        if (detached != null)
+            return detached.search(key, sink);
+        return array.searchRow(row, key, sink);
+    }
+
+    @Override
+    public void completePath(JsonPath path, int depth) throws InvalidJsonPathException {
+        JsonElement detached = detached();
+        if (detached == null) {
+            if (depth == path.length())
+                return;
+            String head = path.token(depth);
+            if (path.isIndex(depth))
+                throw new InvalidJsonPathException("Unexpected array index '" + head + "' in object path");
+
+            int c = array.columnIndex(head);
+            if (c >= 0) {
+                array.cell(row, c).completePath(path, depth + 1);
+                return;
+            }
+            array.generalize();
+            detached = detached();
+        }
+        detached.completePath(path, depth);
+    }
+
+    /**
+     * Returns the value at the path. When the path ends at this row, a regular object is returned
+     * so that it stays valid if the array changes afterwards.
+     */
+    @Override
+    public JsonElement getValueAt(JsonPath path, int depth, String previousKey) throws NotFoundException {
+        JsonElement detached = detached();
+        if (detached != null)
+            return detached.getValueAt(path, depth, previousKey);
+
+        if (depth == path.length())
+            return array.rowObject(row);
+
+        String head = path.token(depth);
+        int c = array.columnIndex(head);
+        if (c < 0) {
+            throw new NotFoundException("JSON object '" + previousKey + "' has no key '" + head + "'");
+        }
+        return array.cell(row, c).getValueAt(path, depth + 1, head);
+    }
+
+    @Override
+    public String assign(JsonPath path, int depth, String previousKey, JsonElement valueToAdd) throws NotFoundException {
+        JsonElement detached = detached();
+        if (detached != null)
+            return detached.assign(path, depth, previousKey, valueToAdd);
+
+        if (depth == path.length()) {
+            return "Empty JSON Path";
+        }
+
+        String head = path.token(depth);
+        int c = array.columnIndex(head);
+        if (c < 0) {
+            return "Json path error: '" + previousKey + "' has no key '" + head + "'";
+        }
+
+        if (depth + 1 == path.length()) {
+            if (valueToAdd instanceof Nothing) {
+                array.generalize();
+                return detached().assign(path, depth, previousKey, valueToAdd);
+            }
+            array.setCell(row, c, valueToAdd);
+            return "Element set";
+        }
+
+        return array.cell(row, c).assign(path, depth + 1, head, valueToAdd);
+    }
+
+    /**
+     * Inserting a member changes the keys of the row, so the array is moved to its general layout
+     * first; an insertion further down the path goes to the member's column.
+     */
+    @Override
+    public String insert(JsonPath path, int depth, String previousKey, int position, JsonElement valueToAdd) throws NotFoundException {
+        JsonElement detached = detached();
+        if (detached != null)
+            return detached.insert(path, depth, previousKey, position, valueToAdd);
+
+        if (depth == path.length()) {
+            return "Empty JSON Path";
+        }
+
+        if (depth + 1 == path.length()) {
+            array.generalize();
+            return detached().insert(path, depth, previousKey, position, valueToAdd);
+        }
+
+        String head = path.token(depth);
+        int c = array.columnIndex(head);
+        if (c < 0) {
+            return "Json path error: '" + previousKey + "' has no key '" + head + "'";
+        }
+        return array.cell(row, c).insert(path, depth + 1, head, position, valueToAdd);
+    }
+
+    /**
+     * @return string representation of the object
+     */
+    @Override
+    public String toString() {
+        return toObject().toString();
+    }
+}
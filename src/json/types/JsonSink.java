@@ -0,0 +1,14 @@
+package src.json.types;
+
+/**
+ * Receives values one at a time as a search or query finds them, and can stop it early.
+ */
+@FunctionalInterface
+public interface JsonSink {
+
+    /**
+     * @param match a value that was found; it belongs to the document and is not copied
+     * @return {@code false} to stop the search
+     */
+    boolean accept(JsonElement match);
+}
@@ -1,5 +1,7 @@
 package src.json.types;
 
+import java.io.IOException;
+
 /**
  * Represents a JSON string value.
  */
@@ -31,13 +33,9 @@ public class JsonString extends JsonPrimitive {
     }
 
     @Override
-    public String toJson(int padding) {
-
-        // За примитиви няма значение indent-а
-        // Той е нужен само за по-сложните типове
-        return toString();
+    public void write(JsonWriter writer, int indent) throws IOException {
+        writer.string(value);
     }
-
     /**
      * @return the JSON-style quoted string
      */
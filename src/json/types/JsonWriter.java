@@ -0,0 +1,185 @@
+package src.json.types;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes JSON elements straight to a character sink in a given {@link JsonFormat}.
+ * <p>
+ * Elements call back into the writer while they walk their children, so output is produced as
+ * the tree is traversed: nothing but the sink's own buffer is held in memory, and every character
+ * is written exactly once no matter how deeply the document is nested.
+ */
+public class JsonWriter implements Flushable, Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Appendable out;
+    private final JsonFormat format;
+    private final boolean compact;
+    private final String lineSeparator;
+
+    /**
+     * Creates a pretty-printing writer over any character sink, e.g. a {@link StringBuilder} or a {@link Writer}.
+     *
+     * @param out destination of the output
+     */
+    public JsonWriter(Appendable out) {
+        this(out, JsonFormat.PRETTY);
+    }
+
+    /**
+     * Creates a writer over any character sink.
+     *
+     * @param out    destination of the output
+     * @param format layout of the output
+     */
+    public JsonWriter(Appendable out, JsonFormat format) {
+        this.out = out;
+        this.format = format;
+        this.compact = format.isCompact();
+        this.lineSeparator = format.getLineSeparator();
+    }
+
+    /**
+     * Creates a pretty-printing writer that encodes the output as UTF-8 through a reusable buffer.
+     *
+     * @param out destination of the bytes
+     */
+    public JsonWriter(OutputStream out) {
+        this(out, JsonFormat.PRETTY);
+    }
+
+    /**
+     * Creates a writer that encodes the output as UTF-8 through a reusable buffer.
+     *
+     * @param out    destination of the bytes
+     * @param format layout of the output
+     */
+    public JsonWriter(OutputStream out, JsonFormat format) {
+        this(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE), format);
+    }
+
+    /**
+     * Writes an element.
+     *
+     * @param element element to serialize
+     * @param indent  nesting level of the element
+     * @throws IOException if the sink fails
+     */
+    public void write(JsonElement element, int indent) throws IOException {
+        element.write(this, indent);
+    }
+
+    /**
+     * Writes the whole contents of a file. A JSON Lines document in compact layout is followed by a
+     * line separator, so that its last record ends its line like every other record.
+     *
+     * @param element the document
+     * @throws IOException if the sink fails
+     */
+    public void writeFile(JsonElement element) throws IOException {
+        write(element, 0);
+        if (compact && element instanceof JsonLines && element.size() > 0)
+            out.append(lineSeparator);
+    }
+
+    void beginObject(int indent) throws IOException {
+        if (compact) {
+            out.append('{');
+            return;
+        }
+        out.append(lineSeparator).append(format.indent(indent)).append('{').append(lineSeparator);
+    }
+
+    void name(String key, int indent) throws IOException {
+        if (compact) {
+            out.append('"').append(key).append("\":");
+            return;
+        }
+        out.append(format.indent(indent + 1)).append('"').append(key).append("\" : ");
+    }
+
+    void endMember(boolean last) throws IOException {
+        if (!last)
+            out.append(',');
+        if (!compact)
+            out.append(lineSeparator);
+    }
+
+    void endObject(int indent) throws IOException {
+        if (!compact)
+            out.append(format.indent(indent));
+        out.append('}');
+    }
+
+    void beginArray(int indent) throws IOException {
+        if (compact) {
+            out.append('[');
+            return;
+        }
+        out.append(lineSeparator).append(format.indent(indent)).append('[');
+    }
+
+    void beginElement(JsonElement element, int indent) throws IOException {
+        beginElement(!element.extraNewline().isEmpty(), indent);
+    }
+
+    /**
+     * @param primitive {@code true} for a scalar, which starts on a new line of its own; containers
+     *                  begin with a line break themselves
+     */
+    void beginElement(boolean primitive, int indent) throws IOException {
+        if (compact)
+            return;
+        if (primitive)
+            out.append(lineSeparator);
+        out.append(format.indent(indent + 1));
+    }
+
+    void endElement(boolean last) throws IOException {
+        if (!last)
+            out.append(',');
+    }
+
+    void endArray(int indent) throws IOException {
+        if (compact) {
+            out.append(']');
+            return;
+        }
+        out.append(lineSeparator).append(format.indent(indent)).append(']');
+    }
+
+    /**
+     * Separates the records of a JSON Lines document. Compact output puts each record on its own
+     * line, as the format requires; pretty output keeps the layout used for array elements.
+     */
+    void beginRecord(JsonElement record, boolean first) throws IOException {
+        if (compact) {
+            if (!first)
+                out.append(lineSeparator);
+            return;
+        }
+        if (!record.extraNewline().isEmpty())
+            out.append(lineSeparator);
+    }
+
+    void string(String value) throws IOException {
+        out.append('"').append(value).append('"');
+    }
+
+    void literal(CharSequence text) throws IOException {
+        out.append(text);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (out instanceof Flushable)
+            ((Flushable) out).flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out instanceof Closeable)
+            ((Closeable) out).close();
+    }
+}
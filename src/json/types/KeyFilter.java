@@ -0,0 +1,227 @@
+package src.json.types;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filters of the member names below a container, which let a search skip subtrees that
+ * certainly do not hold the key it looks for.
+ * <p>
+ * A filter is a 256-bit set in which every member name below the container sets three bits. If
+ * any of the three bits of a key is clear, no member below has that name; if all are set, one
+ * probably has. Only containers with at least {@link #THRESHOLD} values below them get a filter,
+ * so the small objects that make up most of a document cost nothing extra. The parsers compute
+ * the filters bottom-up with a {@link Builder} as they close containers, so nothing they built is
+ * walked again. An edit marks the filters of the containers along its path as {@link #STALE}, and
+ * the next search that reaches one of them computes it again from the filters of its children
+ * that have one and a walk through the rest, which are small.
+ */
+public final class KeyFilter {
+
+    /** Containers with at least this many values below them get a filter. */
+    public static final int THRESHOLD = 64;
+
+    private static final int WORDS = 4;
+    private static final int MASK = WORDS * 64 - 1;
+    private static final int HASHES = 3;
+
+    /** Placeholder for a filter that an edit has made out of date. */
+    static final long[] STALE = new long[0];
+
+    private static final LongAdder checks = new LongAdder();
+    private static final LongAdder skips = new LongAdder();
+
+    private KeyFilter() {
+    }
+
+    /**
+     * Computes the filter of a container whose children are complete.
+     *
+     * @param container the container
+     * @return its filter, or {@code null} if the container is too small to have one
+     */
+    static long[] summarize(JsonComposite container) {
+        Collector collector = new Collector();
+        container.collectKeys(collector);
+        return collector.result(container);
+    }
+
+    /**
+     * @param filter a filter
+     * @param key    member name
+     * @return {@code false} if no member below the filtered container is named {@code key}
+     */
+    static boolean mayContain(long[] filter, String key) {
+        checks.increment();
+        int hash = key.hashCode() * 0x9E3779B9;
+        int step = (hash >>> 16) | 1;
+        for (int i = 0; i < HASHES; i++, hash += step) {
+            int bit = hash & MASK;
+            if ((filter[bit >>> 6] & (1L << bit)) == 0) {
+                skips.increment();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of times a search looked at a filter since {@link #resetStatistics()}
+     */
+    public static long getChecks() {
+        return checks.sum();
+    }
+
+    /**
+     * @return the number of subtrees a search skipped since {@link #resetStatistics()}
+     */
+    public static long getSkips() {
+        return skips.sum();
+    }
+
+    /**
+     * Starts counting checks and skips from zero, e.g. when another document is loaded.
+     */
+    public static void resetStatistics() {
+        checks.reset();
+        skips.reset();
+    }
+
+    /**
+     * Computes the filters of a document while a parser builds it. The parser reports every
+     * container it opens, the member names and values it finds in it, and the container once it is
+     * complete; a complete container passes what it holds on to the one that encloses it.
+     */
+    public static final class Builder {
+        private Collector[] open = new Collector[16];
+        private int depth;
+
+        /**
+         * Starts collecting the contents of a new container.
+         */
+        public void begin() {
+            if (depth == open.length)
+                open = Arrays.copyOf(open, depth * 2);
+            if (open[depth] == null)
+                open[depth] = new Collector();
+            else
+                open[depth].reset();
+            depth++;
+        }
+
+        /**
+         * Adds a member name of the innermost open container.
+         */
+        public void key(String key) {
+            open[depth - 1].key(key);
+        }
+
+        /**
+         * Counts a member or element of the innermost open container.
+         */
+        public void value() {
+            if (depth > 0)
+                open[depth - 1].values++;
+        }
+
+        /**
+         * Gives the innermost open container its filter, if it is large enough for one.
+         *
+         * @param container the complete container
+         */
+        public void end(JsonComposite container) {
+            Collector closed = open[--depth];
+            long[] filter = closed.result(container);
+            container.setKeyFilter(filter);
+            if (depth > 0)
+                open[depth - 1].merge(closed, filter != null);
+        }
+
+        /**
+         * Adds the contents that another builder collected in its outermost open container to the
+         * innermost open container of this one, e.g. one chunk of the elements of an array that
+         * is parsed in parts.
+         *
+         * @param part the other builder
+         */
+        public void merge(Builder part) {
+            open[depth - 1].merge(part.open[0], false);
+        }
+    }
+
+    /**
+     * Gathers the member names of the children of a container and of everything below them.
+     */
+    static final class Collector {
+        private final long[] bits = new long[WORDS];
+        /** Number of values seen; a walk does not count the subtrees of children that have a filter. */
+        private long values;
+        /** Whether a child had a filter of its own, which makes the container large enough too. */
+        private boolean nested;
+
+        void reset() {
+            Arrays.fill(bits, 0);
+            values = 0;
+            nested = false;
+        }
+
+        /**
+         * @return the filter for {@code container}, or {@code null} if it is too small for one
+         */
+        long[] result(JsonComposite container) {
+            if (container instanceof JsonArray && ((JsonArray) container).isPacked())
+                return null;
+            return nested || values >= THRESHOLD ? bits.clone() : null;
+        }
+
+        /**
+         * Adds the contents of a complete child container.
+         *
+         * @param filtered {@code true} if the child got a filter of its own
+         */
+        void merge(Collector child, boolean filtered) {
+            for (int w = 0; w < WORDS; w++) {
+                bits[w] |= child.bits[w];
+            }
+            values += child.values;
+            nested |= filtered || child.nested;
+        }
+
+        /**
+         * Adds a member name.
+         */
+        void key(String key) {
+            int hash = key.hashCode() * 0x9E3779B9;
+            int step = (hash >>> 16) | 1;
+            for (int i = 0; i < HASHES; i++, hash += step) {
+                int bit = hash & MASK;
+                bits[bit >>> 6] |= 1L << bit;
+            }
+        }
+
+        /**
+         * Adds a child value: its filter if it has one, otherwise its own children.
+         */
+        void child(JsonElement child) {
+            values++;
+            if (!(child instanceof JsonComposite))
+                return;
+            long[] filter = ((JsonComposite) child).keyFilter();
+            if (filter == null) {
+                ((JsonComposite) child).collectKeys(this);
+                return;
+            }
+            nested = true;
+            for (int w = 0; w < WORDS; w++) {
+                bits[w] |= filter[w];
+            }
+        }
+
+        /**
+         * Counts values that hold no member names, such as the elements of a packed array.
+         */
+        void scalars(int count) {
+            values += count;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package src.json.types;
+
+import src.exception.NotFoundException;
+import src.json.Parsing.JsonTape;
+
+import java.io.IOException;
+
+/**
+ * Lazy view of a JSON array recorded on a {@link JsonTape}.
+ */
+public class LazyJsonArray extends LazyJsonComposite {
+
+    /**
+     * @param tape  tape holding the document
+     * @param index tape index of the array
+     */
+    public LazyJsonArray(JsonTape tape, int index) {
+        super(tape, index);
+    }
+
+    /**
+     * @return the number of elements in the array
+     */
+    public int size() {
+        int count = 0;
+        int end = tape.next(index);
+        for (int i = index + 1; i < end; i = tape.next(i)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Retrieves the element at a given index, skipping over the subtrees before it.
+     *
+     * @param position the index to access
+     * @return the element, or {@code null} if the array is shorter
+     */
+    public JsonElement get(int position) {
+        int end = tape.next(index);
+        int i = index + 1;
+        for (int skipped = 0; skipped < position && i < end; skipped++) {
+            i = tape.next(i);
+        }
+        return i < end ? tape.element(i) : null;
+    }
+
+    @Override
+    public JsonElement element(int position) {
+        return position < 0 ? null : get(position);
+    }
+
+    @Override
+    public boolean forEachChild(ChildVisitor visitor) {
+        int end = tape.next(index);
+        int position = 0;
+        for (int i = index + 1; i < end; i = tape.next(i)) {
+            if (!visitor.visit(null, position++, tape.element(i)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Streams the elements straight from the tape; only scalar values are materialized.
+     */
+    @Override
+    public void write(JsonWriter writer, int indent) throws IOException {
+        writer.beginArray(indent);
+
+        int end = tape.next(index);
+        for (int i = index + 1; i < end; ) {
+            int next = tape.next(i);
+            JsonElement element = tape.element(i);
+            writer.beginElement(element, indent);
+            element.write(writer, indent + 1);
+            writer.endElement(next == end);
+            i = next;
+        }
+        writer.endArray(indent);
+    }
+
+    @Override
+    public JsonElement getValueAt(JsonPath path, int depth, String previousKey) throws NotFoundException {
+        if(depth == path.length())
+            return this;
+
+        String head = path.token(depth);
+        if (!path.isIndex(depth)) {
+            throw new NotFoundException("In array " + previousKey + ", '" + head + "' is not a valid index");
+        }
+
+        JsonElement element = get(path.index(depth));
+        if (element == null) {
+            throw new NotFoundException(head + " is greater than the number of items in array " + previousKey);
+        }
+
+        return element.getValueAt(path, depth + 1, head);
+    }
+}
@@ -0,0 +1,66 @@
+package src.json.types;
+
+import src.exception.InvalidJsonPathException;
+import src.json.Parsing.JsonTape;
+
+
+/**
+ * Read-only view of an object or array recorded on a {@link JsonTape}.
+ * <p>
+ * Views are cheap to create and build regular elements only for the values that are read.
+ * They cannot be edited; a document has to be materialized with {@link #deepCopy()} first.
+ */
+public abstract class LazyJsonComposite extends JsonComposite {
+    protected final JsonTape tape;
+    protected final int index;
+
+    protected LazyJsonComposite(JsonTape tape, int index) {
+        this.tape = tape;
+        this.index = index;
+    }
+
+    /**
+     * @return a regular mutable copy of this subtree
+     */
+    @Override
+    public JsonElement deepCopy() {
+        return tape.materialize(index);
+    }
+
+    /**
+     * Scans the keys of the subtree in document order, so matches come out in the same
+     * order as for a regular tree.
+     */
+    @Override
+    public boolean search(String key, JsonSink sink) {
+        int end = tape.next(index);
+        for (int i = index + 1; i < end; i++) {
+            if (tape.kind(i) == JsonTape.KEY && tape.keyEquals(i, key) && !sink.accept(tape.element(i + 1)))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void completePath(JsonPath path, int depth) throws InvalidJsonPathException {
+        throw new UnsupportedOperationException("Lazy documents must be materialized before editing");
+    }
+
+    @Override
+    public String assign(JsonPath path, int depth, String previousKey, JsonElement valueToAdd) {
+        throw new UnsupportedOperationException("Lazy documents must be materialized before editing");
+    }
+
+    @Override
+    public String insert(JsonPath path, int depth, String previousKey, int position, JsonElement valueToAdd) {
+        throw new UnsupportedOperationException("Lazy documents must be materialized before editing");
+    }
+
+    /**
+     * @return string representation of the materialized subtree
+     */
+    @Override
+    public String toString() {
+        return tape.materialize(index).toString();
+    }
+}
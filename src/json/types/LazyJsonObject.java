@@ -0,0 +1,110 @@
+package src.json.types;
+
+import src.exception.NotFoundException;
+import src.json.Parsing.JsonTape;
+
+import java.io.IOException;
+
+/**
+ * Lazy view of a JSON object recorded on a {@link JsonTape}.
+ */
+public class LazyJsonObject extends LazyJsonComposite {
+
+    /**
+     * @param tape  tape holding the document
+     * @param index tape index of the object
+     */
+    public LazyJsonObject(JsonTape tape, int index) {
+        super(tape, index);
+    }
+
+    /**
+     * Retrieves the value associated with a given key. As with {@link JsonObject}, the last
+     * occurrence wins if the key is repeated.
+     *
+     * @param key the key to look up
+     * @return the associated element, or {@code null} if not present
+     */
+    public JsonElement get(String key) {
+        int found = -1;
+        int end = tape.next(index);
+        for (int i = index + 1; i < end; i = tape.next(i + 1)) {
+            if (tape.keyEquals(i, key))
+                found = i + 1;
+        }
+        return found < 0 ? null : tape.element(found);
+    }
+
+    @Override
+    public JsonElement member(String key) {
+        return get(key);
+    }
+
+    @Override
+    public JsonElement child(int position) {
+        int end = tape.next(index);
+        int current = 0;
+        for (int i = index + 1; i < end; i = tape.next(i + 1)) {
+            if (current++ == position)
+                return tape.element(i + 1);
+        }
+        return null;
+    }
+
+    /**
+     * @return the number of members
+     */
+    @Override
+    public int size() {
+        int count = 0;
+        int end = tape.next(index);
+        for (int i = index + 1; i < end; i = tape.next(i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public boolean forEachChild(ChildVisitor visitor) {
+        int end = tape.next(index);
+        int position = 0;
+        for (int i = index + 1; i < end; i = tape.next(i + 1)) {
+            if (!visitor.visit(tape.key(i), position++, tape.element(i + 1)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Streams the members straight from the tape; only scalar values are materialized.
+     */
+    @Override
+    public void write(JsonWriter writer, int indent) throws IOException {
+        writer.beginObject(indent);
+
+        int end = tape.next(index);
+        for (int i = index + 1; i < end; ) {
+            int next = tape.next(i + 1);
+            writer.name(tape.key(i), indent);
+            tape.element(i + 1).write(writer, indent + 1);
+            writer.endMember(next == end);
+            i = next;
+        }
+        writer.endObject(indent);
+    }
+
+    @Override
+    public JsonElement getValueAt(JsonPath path, int depth, String previousKey) throws NotFoundException {
+        if(depth == path.length())
+            return this;
+
+        String head = path.token(depth);
+
+        JsonElement element = get(head);
+        if (element == null) {
+            throw new NotFoundException("JSON object '" + previousKey + "' has no key '" + head + "'");
+        }
+
+        return element.getValueAt(path, depth + 1, head);
+    }
+}
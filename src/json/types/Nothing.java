@@ -20,8 +20,7 @@ public class Nothing extends JsonPrimitive {
     }
 
     @Override
-    public String toJson(int padding) {
-        return "";
+    public void write(JsonWriter writer, int indent) {
     }
 
     /**
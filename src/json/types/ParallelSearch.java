@@ -0,0 +1,156 @@
+package src.json.types;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs {@link JsonElement#search(String, JsonSink)} on the common {@link ForkJoinPool}.
+ * <p>
+ * Objects and arrays with at least {@link #SPLIT_THRESHOLD} members or elements are split into
+ * ranges that are searched by separate tasks, and large containers met inside a range are handed
+ * to tasks of their own. Every task keeps its matches in document order, with a placeholder for
+ * each task it started, so walking the results depth-first gives exactly the matches of a
+ * sequential search. The walk happens on the calling thread while the tasks run, so the first
+ * matches reach the sink before the whole document has been searched.
+ * <p>
+ * Lazy documents, and any document when the pool has a single thread, are searched sequentially.
+ * Containers whose {@link KeyFilter} rules the key out get no tasks.
+ */
+public final class ParallelSearch {
+
+    /** Containers with at least this many members or elements are searched by several tasks. */
+    public static final int SPLIT_THRESHOLD = 1 << 10;
+
+    /** Number of ranges per pool thread that a container is split into. */
+    private static final int RANGES_PER_THREAD = 8;
+
+    private final String key;
+    private final int parallelism;
+    /** Set once the sink asks to stop, so that the remaining tasks end early. */
+    private volatile boolean stopped;
+
+    private ParallelSearch(String key, int parallelism) {
+        this.key = key;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Passes the values of all members named {@code key} below {@code root} to {@code sink}, in
+     * the same order as {@link JsonElement#search(String, JsonSink)}.
+     *
+     * @param root document to search
+     * @param key  member name
+     * @param sink receiver of the values
+     * @return {@code false} if the sink stopped the search
+     */
+    public static boolean search(JsonElement root, String key, JsonSink sink) {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        if (parallelism <= 1 || !(root instanceof JsonObject || root instanceof JsonArray)
+                || (root instanceof JsonArray && isColumnOriented((JsonArray) root)))
+            return root.search(key, sink);
+        if (!((JsonComposite) root).mayContainKey(key))
+            return true;
+
+        ParallelSearch search = new ParallelSearch(key, parallelism);
+        RangeTask task = search.new RangeTask(root, 0, root.size());
+        List<Object> parts = ForkJoinPool.commonPool().invoke(task);
+        return search.emit(parts, sink);
+    }
+
+    /**
+     * Hands the matches to the sink in order, waiting for each task when its turn comes.
+     */
+    private boolean emit(List<Object> parts, JsonSink sink) {
+        for (Object part : parts) {
+            if (part instanceof RangeTask) {
+                if (!emit(((RangeTask) part).join(), sink))
+                    return false;
+            } else if (!sink.accept((JsonElement) part)) {
+                stopped = true;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return {@code true} if {@code element} is large enough to be searched by tasks of its own
+     */
+    private static boolean splittable(JsonElement element) {
+        if (element instanceof JsonObject)
+            return element.size() >= SPLIT_THRESHOLD;
+        return element instanceof JsonArray && !isColumnOriented((JsonArray) element)
+                && element.size() >= SPLIT_THRESHOLD;
+    }
+
+    /**
+     * Columnar and packed arrays are left whole, since their own search works column by column
+     * and is cheap compared with walking their elements one by one.
+     */
+    private static boolean isColumnOriented(JsonArray array) {
+        return array.isColumnar() || array.isPacked();
+    }
+
+    /**
+     * Searches members or elements {@code from} to {@code to} of a container. The result holds
+     * the matches and the tasks started for large children, in document order.
+     */
+    private final class RangeTask extends RecursiveTask<List<Object>> {
+        private static final long serialVersionUID = 1L;
+
+        private final JsonElement container;
+        private final int from;
+        private final int to;
+
+        RangeTask(JsonElement container, int from, int to) {
+            this.container = container;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Object> compute() {
+            int rangeSize = Math.max(1, container.size() / (parallelism * RANGES_PER_THREAD));
+            if (to - from > rangeSize && splittable(container)) {
+                int mid = (from + to) >>> 1;
+                RangeTask right = new RangeTask(container, mid, to);
+                right.fork();
+                List<Object> parts = new RangeTask(container, from, mid).compute();
+                parts.add(right);
+                return parts;
+            }
+
+            List<Object> parts = new ArrayList<>();
+            JsonSink collect = match -> {
+                parts.add(match);
+                return !stopped;
+            };
+            if (container instanceof JsonObject) {
+                JsonObject object = (JsonObject) container;
+                for (int i = from; i < to && !stopped; i++) {
+                    if (object.keyAt(i).equals(key))
+                        parts.add(object.valueAt(i));
+                    searchChild(object.valueAt(i), parts, collect);
+                }
+            } else {
+                JsonArray array = (JsonArray) container;
+                for (int i = from; i < to && !stopped; i++) {
+                    searchChild(array.get(i), parts, collect);
+                }
+            }
+            return parts;
+        }
+
+        private void searchChild(JsonElement child, List<Object> parts, JsonSink collect) {
+            if (!splittable(child)) {
+                child.search(key, collect);
+            } else if (((JsonComposite) child).mayContainKey(key)) {
+                RangeTask task = new RangeTask(child, 0, child.size());
+                task.fork();
+                parts.add(task);
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package src.json.Parsing;
+
+import src.json.types.JsonFormat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Concurrency stress test for {@link JsonParser}.
+ * <p>
+ * Generates a fixed set of documents, parses each of them once on the calling thread, and then
+ * parses all of them again on a fixed thread pool with one thread per core, in a different order
+ * in every round. Each concurrent result must be identical to the sequential one: the same tree
+ * written as compact JSON, or the same error message and position. An exception thrown by a
+ * concurrent parse counts as a difference.
+ * <p>
+ * Every tenth document is corrupted so that error reporting is checked as well. A few valid
+ * documents are top-level arrays large enough for the parser to split them across the common
+ * pool; the test fails if one of them does not parse, so that path stays covered. It is only taken
+ * when the common pool has more than one thread.
+ * <p>
+ * Run with {@code java src.json.Parsing.JsonParserStressTest [documents] [rounds] [threads]}.
+ * The process exits with status 1 if any result differs.
+ */
+public class JsonParserStressTest {
+
+    /** Seed of the generated documents, so that a failure can be reproduced. */
+    private static final long SEED = 20240601L;
+
+    /**
+     * Every this many documents, one is a large array that is parsed in parallel. It sits in the
+     * middle of each block, on a slot that is never corrupted.
+     */
+    private static final int LARGE_EVERY = 1000;
+
+    public static void main(String[] args) throws Exception {
+        int documents = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        Random random = new Random(SEED);
+        List<String> inputs = new ArrayList<>(documents);
+        for (int i = 0; i < documents; i++) {
+            String json = isLarge(i) ? largeDocument(random) : document(random);
+            inputs.add(isCorrupt(i) ? corrupt(json, random) : json);
+        }
+
+        int failures = 0;
+        String[] expected = new String[documents];
+        for (int i = 0; i < documents; i++) {
+            expected[i] = describe(JsonParser.parseJson(inputs.get(i)));
+            if (!isCorrupt(i) && !expected[i].startsWith("ok ")) {
+                System.out.println((isLarge(i) ? "Large document " : "Document ") + i + " did not parse: "
+                        + abbreviate(expected[i]));
+                failures++;
+            }
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Integer> order = new ArrayList<>(documents);
+            for (int i = 0; i < documents; i++) order.add(i);
+
+            for (int round = 1; round <= rounds; round++) {
+                Collections.shuffle(order, random);
+                List<Callable<String>> tasks = new ArrayList<>(documents);
+                for (int i : order) {
+                    String json = inputs.get(i);
+                    tasks.add(() -> describe(new JsonParser(json).parse()));
+                }
+
+                long start = System.nanoTime();
+                List<Future<String>> results = pool.invokeAll(tasks);
+                long millis = (System.nanoTime() - start) / 1_000_000;
+
+                int mismatches = 0;
+                for (int k = 0; k < documents; k++) {
+                    int i = order.get(k);
+                    String actual;
+                    try {
+                        actual = results.get(k).get();
+                    } catch (ExecutionException ex) {
+                        actual = "exception " + ex.getCause();
+                    }
+                    if (!actual.equals(expected[i])) {
+                        if (mismatches++ < 5)
+                            System.out.println("Round " + round + ", document " + i + ": expected "
+                                    + abbreviate(expected[i]) + " but was " + abbreviate(actual));
+                    }
+                }
+                System.out.println("Round " + round + ": " + documents + " documents on " + threads
+                        + " threads in " + millis + " ms, " + mismatches + " mismatches");
+                failures += mismatches;
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        if (failures > 0) {
+            System.out.println("FAILED: " + failures + " mismatches");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static boolean isLarge(int document) {
+        return document % LARGE_EVERY == LARGE_EVERY / 2;
+    }
+
+    private static boolean isCorrupt(int document) {
+        return document % 10 == 9;
+    }
+
+    /**
+     * @return the tree written as compact JSON, or the error message and position
+     */
+    private static String describe(JsonParseResult result) {
+        if (result.isSuccess())
+            return "ok " + result.parsedData.toJson(0, JsonFormat.COMPACT);
+        return "error at " + result.errorPosition + ": " + result.errorMessage;
+    }
+
+    private static String abbreviate(String text) {
+        return text.length() <= 80 ? text : text.substring(0, 80) + "...";
+    }
+
+    /**
+     * @return a small document with objects, arrays, escaped strings and numbers of every form
+     */
+    private static String document(Random random) {
+        StringBuilder sb = new StringBuilder();
+        if (random.nextBoolean())
+            object(sb, random, 0);
+        else
+            array(sb, random, 0);
+        return sb.toString();
+    }
+
+    /**
+     * @return a top-level array of more than {@link JsonParser#PARALLEL_THRESHOLD} characters
+     */
+    private static String largeDocument(Random random) {
+        StringBuilder sb = new StringBuilder("[");
+        while (sb.length() < JsonParser.PARALLEL_THRESHOLD + 4096) {
+            if (sb.length() > 1) sb.append(',');
+            object(sb, random, 2);
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * @return {@code json} truncated, or with one character replaced by a stray bracket or letter
+     */
+    private static String corrupt(String json, Random random) {
+        int at = random.nextInt(json.length());
+        if (random.nextInt(3) == 0)
+            return json.substring(0, at);
+        char stray = "]}x,:\"".charAt(random.nextInt(6));
+        return json.substring(0, at) + stray + json.substring(at + 1);
+    }
+
+    private static void value(StringBuilder sb, Random random, int depth) {
+        int kind = random.nextInt(depth >= 4 ? 6 : 8);
+        switch (kind) {
+            case 0:
+                sb.append("null");
+                break;
+            case 1:
+                sb.append(random.nextBoolean());
+                break;
+            case 2:
+                sb.append(random.nextInt(2_000_001) - 1_000_000);
+                break;
+            case 3:
+                number(sb, random);
+                break;
+            case 4:
+            case 5:
+                string(sb, random);
+                break;
+            case 6:
+                object(sb, random, depth + 1);
+                break;
+            default:
+                array(sb, random, depth + 1);
+                break;
+        }
+    }
+
+    private static void object(StringBuilder sb, Random random, int depth) {
+        int members = random.nextInt(6);
+        sb.append('{');
+        for (int i = 0; i < members; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append("\"k").append(random.nextInt(12)).append(i).append("\": ");
+            value(sb, random, depth);
+        }
+        sb.append('}');
+    }
+
+    private static void array(StringBuilder sb, Random random, int depth) {
+        int elements = random.nextInt(6);
+        sb.append('[');
+        for (int i = 0; i < elements; i++) {
+            if (i > 0) sb.append(",\n ");
+            value(sb, random, depth);
+        }
+        sb.append(']');
+    }
+
+    private static void number(StringBuilder sb, Random random) {
+        switch (random.nextInt(4)) {
+            case 0:
+                sb.append(random.nextLong());
+                break;
+            case 1:
+                sb.append(random.nextInt(100_000)).append('.').append(random.nextInt(100_000));
+                break;
+            case 2:
+                sb.append(random.nextInt(1000)).append('e').append(random.nextInt(40) - 20);
+                break;
+            default:
+                sb.append(random.nextDouble() * 1e6);
+                break;
+        }
+    }
+
+    private static void string(StringBuilder sb, Random random) {
+        String[] pieces = {"a", "bc", "Zürich", "\\n", "\\t", "\\\"", "\\\\", "\\u00e9", "\\ud83d\\ude00", " ", "/", "\\/"};
+        int length = random.nextInt(6);
+        sb.append('"');
+        for (int i = 0; i < length; i++)
+            sb.append(pieces[random.nextInt(pieces.length)]);
+        sb.append('"');
+    }
+}
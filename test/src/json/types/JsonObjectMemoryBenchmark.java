@@ -0,0 +1,102 @@
+package src.json.types;
+
+import src.json.Parsing.JsonParser;
+import src.json.Parsing.KeyTable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Memory benchmark for the member storage of {@link JsonObject}.
+ * <p>
+ * For each object size, parses the given number of objects such as
+ * {@code {"key0": null, "key1": null}}, each as a separate document so that the parser does not
+ * store them by column, and measures the heap they retain after a full GC. The same members are
+ * then copied into objects that keep them in a {@link LinkedHashMap}, the layout
+ * {@code JsonObject} used before it switched to parallel arrays, and measured the same way. Keys
+ * are interned and every value is the shared {@link JsonNull}, so only the objects themselves are
+ * counted.
+ * <p>
+ * Run with {@code java -Xms2g -Xmx2g src.json.types.JsonObjectMemoryBenchmark [objects] [sizes...]}
+ * on a 64-bit JVM with compressed references; figures vary by a few bytes between runs.
+ */
+public class JsonObjectMemoryBenchmark {
+
+    /**
+     * An object with the member storage {@code JsonObject} had before, plus the key filter
+     * reference every container has now.
+     */
+    private static final class MapObject {
+        private volatile long[] keyFilter;
+        private final Map<String, JsonElement> members = new LinkedHashMap<>();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int objects = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int[] sizes = {2, 5, 20};
+        if (args.length > 1) {
+            sizes = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++)
+                sizes[i - 1] = Integer.parseInt(args[i]);
+        }
+
+        System.out.printf("%d objects, bytes per member (per object)%n", objects);
+        System.out.printf("%8s %22s %22s%n", "members", "LinkedHashMap", "parallel arrays");
+        for (int members : sizes) {
+            long[] retained = measure(objects, members);
+            System.out.printf("%8d %22s %22s%n", members, figures(retained[0], objects, members), figures(retained[1], objects, members));
+        }
+    }
+
+    /**
+     * Runs one size in its own frame, so that nothing from the previous size is still reachable.
+     *
+     * @return bytes retained by the map-based objects and by the parsed objects
+     */
+    private static long[] measure(int objects, int members) throws InterruptedException {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < members; i++)
+            sb.append(i > 0 ? ", " : "").append("\"key").append(i).append("\": null");
+        String text = sb.append('}').toString();
+
+        KeyTable keys = new KeyTable();
+        JsonObject[] parsed = new JsonObject[objects];
+        long base = usedHeap();
+        for (int i = 0; i < objects; i++)
+            parsed[i] = (JsonObject) new JsonParser(text, keys).parse().parsedData;
+        long arrays = usedHeap() - base;
+
+        MapObject[] copies = new MapObject[objects];
+        base = usedHeap();
+        for (int i = 0; i < objects; i++) {
+            MapObject copy = new MapObject();
+            for (String key : parsed[i].keySet())
+                copy.members.put(key, parsed[i].get(key));
+            copies[i] = copy;
+        }
+        long maps = usedHeap() - base;
+
+        if (copies[objects - 1].members.size() != parsed[objects - 1].size())
+            throw new IllegalStateException("Copied object differs from the parsed one");
+        return new long[] {maps, arrays};
+    }
+
+    private static String figures(long bytes, int objects, int members) {
+        return String.format("%.1f (%.1f)", (double) bytes / objects / members, (double) bytes / objects);
+    }
+
+    /**
+     * @return the least heap in use over several full collections; a collector may leave garbage
+     *         in place for a few collections, so equal readings in a row are not enough
+     */
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            Thread.sleep(20);
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}